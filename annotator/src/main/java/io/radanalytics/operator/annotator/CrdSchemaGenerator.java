@@ -0,0 +1,68 @@
+package io.radanalytics.operator.annotator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Generates <code>public static String crdSchema()</code> for the entity info classes (those extending
+ * <code>EntityInfo</code>) created by jsonschema2pojo. It returns the JSON schema of the class in the compact form
+ * and without the default values, i.e. exactly what goes to the validation of the custom resource definition, so the
+ * runtime doesn't need to look up the schema file on the class path and strip the defaults from it.
+ *
+ * The method isn't generated if the schema doesn't fit into a string constant.
+ */
+class CrdSchemaGenerator {
+
+    static final String METHOD_NAME = "crdSchema";
+    private static final String ENTITY_INFO = "io.radanalytics.operator.common.EntityInfo";
+    // limit of the class file for the UTF-8 representation of a string constant
+    private static final int MAX_CONSTANT_LENGTH = 65535;
+
+    private final JDefinedClass clazz;
+
+    CrdSchemaGenerator(JDefinedClass clazz) {
+        this.clazz = clazz;
+    }
+
+    void generate(JsonNode schema) {
+        if (clazz.getClassType() != ClassType.CLASS || clazz._extends() == null
+                || !ENTITY_INFO.equals(clazz._extends().fullName()) || !schema.isObject()) {
+            return;
+        }
+        for (JMethod method : clazz.methods()) {
+            if (METHOD_NAME.equals(method.name())) {
+                return;
+            }
+        }
+        ObjectNode crdSchema = schema.deepCopy();
+        removeDefaultValues(crdSchema);
+        String json = crdSchema.toString();
+        if (json.getBytes(StandardCharsets.UTF_8).length > MAX_CONSTANT_LENGTH) {
+            return;
+        }
+        JMethod method = clazz.method(JMod.PUBLIC | JMod.STATIC, clazz.owner().ref(String.class), METHOD_NAME);
+        method.body()._return(JExpr.lit(json));
+    }
+
+    // the same as the runtime does: the default of the schema and of its properties, recursively
+    private static void removeDefaultValues(JsonNode schema) {
+        if (!schema.isObject()) {
+            return;
+        }
+        ((ObjectNode) schema).remove("default");
+        JsonNode properties = schema.get("properties");
+        if (properties != null) {
+            for (Iterator<JsonNode> it = properties.elements(); it.hasNext(); ) {
+                removeDefaultValues(it.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package io.radanalytics.operator.annotator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JAssignmentTarget;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates <code>public static T fromMap(Map&lt;String, Object&gt; map)</code> for the classes created by
+ * jsonschema2pojo. The method fills the fields directly from the untyped structure (as produced by Jackson or Snake
+ * yaml), so the runtime doesn't need reflection for it. It's strict: unknown keys and values of unexpected types
+ * cause a <code>RuntimeException</code> and the runtime falls back to Jackson, which handles all the remaining cases.
+ *
+ * If any of the properties has a type that isn't supported here, the method isn't generated at all.
+ */
+class FromMapGenerator {
+
+    static final String METHOD_NAME = "fromMap";
+    private static final String ENTITY_INFO = "io.radanalytics.operator.common.EntityInfo";
+
+    private final JCodeModel model;
+    private final JDefinedClass clazz;
+
+    FromMapGenerator(JDefinedClass clazz) {
+        this.model = clazz.owner();
+        this.clazz = clazz;
+    }
+
+    void generate(JsonNode propertiesNode) {
+        if (clazz.getClassType() != ClassType.CLASS || clazz.isAbstract() || hasMethod(clazz, METHOD_NAME)) {
+            return;
+        }
+        Map<String, JFieldVar> properties = new LinkedHashMap<>();
+        if (propertiesNode != null) {
+            for (Iterator<String> it = propertiesNode.fieldNames(); it.hasNext(); ) {
+                String property = it.next();
+                JFieldVar field = findField(property);
+                if (field == null || !isSupported(field.type())) {
+                    return;
+                }
+                properties.put(property, field);
+            }
+        }
+
+        JClass mapType = model.ref(Map.class).narrow(String.class, Object.class);
+        JClass entryType = model.ref(Map.Entry.class).narrow(String.class, Object.class);
+        JMethod method = clazz.method(JMod.PUBLIC | JMod.STATIC, clazz, METHOD_NAME);
+        method.annotate(SuppressWarnings.class).param("value", "unchecked");
+        JVar map = method.param(mapType, "map");
+        JBlock body = method.body();
+        JVar result = body.decl(clazz, "result", JExpr._new(clazz));
+        JForEach forEach = body.forEach(entryType, "entry", map.invoke("entrySet"));
+        JBlock loop = forEach.body();
+        JVar value = loop.decl(model.ref(Object.class), "value", forEach.var().invoke("getValue"));
+        JSwitch keys = loop._switch(forEach.var().invoke("getKey"));
+
+        for (Map.Entry<String, JFieldVar> property : properties.entrySet()) {
+            JBlock block = keys._case(JExpr.lit(property.getKey())).body().block();
+            JFieldVar field = property.getValue();
+            JFieldRef target = JExpr.ref(result, field);
+            if (field.type().isPrimitive()) {
+                block._if(value.ne(JExpr._null()))._then().assign(target, convert(field.type(), value));
+            } else {
+                JConditional isNull = block._if(value.eq(JExpr._null()));
+                isNull._then().assign(target, JExpr._null());
+                assign(isNull._else(), target, field.type(), value);
+            }
+            block._break();
+        }
+        if (clazz._extends() != null && ENTITY_INFO.equals(clazz._extends().fullName())) {
+            for (String inherited : new String[]{"name", "namespace"}) {
+                if (!properties.containsKey(inherited)) {
+                    JBlock block = keys._case(JExpr.lit(inherited)).body().block();
+                    String setter = "set" + Character.toUpperCase(inherited.charAt(0)) + inherited.substring(1);
+                    block.invoke(result, setter).arg(JExpr.cast(model.ref(String.class), value));
+                    block._break();
+                }
+            }
+        }
+        keys._default().body()._throw(JExpr._new(model.ref(IllegalArgumentException.class))
+                .arg(JExpr.lit("Unrecognized field ").plus(forEach.var().invoke("getKey"))));
+        body._return(result);
+    }
+
+    private void assign(JBlock block, JAssignmentTarget target, JType type, JExpression value) {
+        JClass collection = collectionImpl(type);
+        if (collection == null) {
+            block.assign(target, convert(type, value));
+            return;
+        }
+        JClass itemType = ((JClass) type).getTypeParameters().get(0);
+        JVar items = block.decl(type, "items", JExpr._new(collection.narrow(itemType)));
+        JForEach forEach = block.forEach(model.ref(Object.class), "item",
+                JExpr.cast(model.ref(List.class).narrow(Object.class), value));
+        JBlock loop = forEach.body();
+        JVar item = forEach.var();
+        loop.invoke(items, "add").arg(JOp.cond(item.eq(JExpr._null()), JExpr._null(), convert(itemType, item)));
+        block.assign(target, items);
+    }
+
+    private JExpression convert(JType type, JExpression value) {
+        JType boxed = type.boxify();
+        String name = boxed.fullName();
+        if (Integer.class.getName().equals(name)) {
+            return number(type, value, "intValue", Integer.class);
+        } else if (Long.class.getName().equals(name)) {
+            return number(type, value, "longValue", Long.class);
+        } else if (Double.class.getName().equals(name)) {
+            return number(type, value, "doubleValue", Double.class);
+        } else if (Float.class.getName().equals(name)) {
+            return number(type, value, "floatValue", Float.class);
+        } else if (Object.class.getName().equals(name)) {
+            return value;
+        } else if (boxed instanceof JDefinedClass) {
+            JDefinedClass nested = (JDefinedClass) boxed;
+            if (nested.getClassType() == ClassType.ENUM) {
+                return nested.staticInvoke("fromValue").arg(JExpr.cast(model.ref(String.class), value));
+            }
+            return nested.staticInvoke(METHOD_NAME).arg(JExpr.cast(model.ref(Map.class).narrow(String.class,
+                    Object.class), value));
+        }
+        // String, Boolean, Map<String, Object>
+        return JExpr.cast(boxed, value);
+    }
+
+    private JExpression number(JType type, JExpression value, String unboxMethod, Class<?> boxedClass) {
+        JExpression primitive = JExpr.cast(model.ref(Number.class), value).invoke(unboxMethod);
+        return type.isPrimitive() ? primitive : model.ref(boxedClass).staticInvoke("valueOf").arg(primitive);
+    }
+
+    private boolean isSupported(JType type) {
+        JClass collection = collectionImpl(type);
+        if (collection != null) {
+            List<JClass> typeParameters = ((JClass) type).getTypeParameters();
+            return typeParameters.size() == 1 && collectionImpl(typeParameters.get(0)) == null
+                    && isSupported(typeParameters.get(0));
+        }
+        JType boxed = type.boxify();
+        String name = boxed.fullName();
+        if (boxed instanceof JDefinedClass) {
+            JDefinedClass nested = (JDefinedClass) boxed;
+            // nested classes are generated before the outer one, so their fromMap already exists (or never will)
+            return nested.getClassType() == ClassType.ENUM ? hasMethod(nested, "fromValue")
+                    : hasMethod(nested, METHOD_NAME);
+        }
+        return String.class.getName().equals(name) || Boolean.class.getName().equals(name)
+                || Integer.class.getName().equals(name) || Long.class.getName().equals(name)
+                || Double.class.getName().equals(name) || Float.class.getName().equals(name)
+                || Object.class.getName().equals(name)
+                || model.ref(Map.class).narrow(String.class, Object.class).fullName().equals(name);
+    }
+
+    private JClass collectionImpl(JType type) {
+        if (!(type instanceof JClass)) {
+            return null;
+        }
+        String erasure = ((JClass) type).erasure().fullName();
+        if (List.class.getName().equals(erasure)) {
+            return model.ref(ArrayList.class);
+        } else if (Set.class.getName().equals(erasure)) {
+            return model.ref(LinkedHashSet.class);
+        }
+        return null;
+    }
+
+    private JFieldVar findField(String property) {
+        Map<String, JFieldVar> fields = clazz.fields();
+        if (fields.containsKey(property)) {
+            return fields.get(property);
+        }
+        // the same normalization as jsonschema2pojo does: foo-bar, foo_bar -> fooBar
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : property.toCharArray()) {
+            if (!Character.isJavaIdentifierPart(c) || c == '_') {
+                upper = sb.length() > 0;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        String normalized = sb.toString();
+        return fields.containsKey(normalized) ? fields.get(normalized) : fields.get("_" + normalized);
+    }
+
+    private static boolean hasMethod(JDefinedClass clazz, String name) {
+        for (JMethod method : clazz.methods()) {
+            if (name.equals(method.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
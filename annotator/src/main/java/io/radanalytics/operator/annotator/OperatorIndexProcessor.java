@@ -0,0 +1,133 @@
+package io.radanalytics.operator.annotator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the index of the classes annotated by <code>@Operator</code> to
+ * <code>META-INF/abstract-operator/operators.json</code>. For each operator (by its binary class name), it records
+ * all the attributes of the annotation including the defaults, the class name of <code>forKind</code> and the entity
+ * name and prefix resolved the same way as the runtime does, so the operators are initialized without reading the
+ * annotations and class metadata by reflection.
+ *
+ * Only the classes compiled in the current run get to the index, so after an incremental compilation some operators
+ * can be missing there. Those, as well as the classes compiled without the processor, are still initialized from the
+ * annotation.
+ */
+@SupportedAnnotationTypes(OperatorIndexProcessor.OPERATOR)
+public class OperatorIndexProcessor extends AbstractProcessor {
+
+    static final String OPERATOR = "io.radanalytics.operator.common.Operator";
+    static final String INDEX = "META-INF/abstract-operator/operators.json";
+
+    private final Map<String, Map<String, Object>> operators = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!operators.isEmpty()) {
+                writeIndex();
+            }
+            return false;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+                    if (OPERATOR.equals(nameOf(mirror.getAnnotationType()))) {
+                        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+                        operators.put(name, describe(type, mirror));
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Object> describe(TypeElement type, AnnotationMirror mirror) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        String kindName = "";
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> attribute
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            String key = attribute.getKey().getSimpleName().toString();
+            Object value = attribute.getValue().getValue();
+            if ("forKind".equals(key) && value instanceof TypeMirror) {
+                kindName = processingEnv.getTypeUtils().asElement((TypeMirror) value).getSimpleName().toString();
+            }
+            entry.put(key, valueOf(attribute.getValue()));
+        }
+        // the same precedence as in AbstractOperator.initInternals
+        String named = (String) entry.get("named");
+        String entityName = named != null && !named.isEmpty() ? named : kindName;
+        String prefix = (String) entry.get("prefix");
+        if (prefix == null || prefix.isEmpty()) {
+            prefix = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        }
+        entry.put("entityName", entityName);
+        entry.put("prefix", prefix);
+        return entry;
+    }
+
+    private Object valueOf(AnnotationValue annotationValue) {
+        Object value = annotationValue.getValue();
+        if (value instanceof TypeMirror) {
+            return nameOf((TypeMirror) value);
+        } else if (value instanceof List) {
+            return ((List<?>) value).stream()
+                    .map(item -> valueOf((AnnotationValue) item))
+                    .collect(Collectors.toList());
+        }
+        // String, boxed primitives
+        return value;
+    }
+
+    private String nameOf(TypeMirror type) {
+        Element element = processingEnv.getTypeUtils().asElement(type);
+        return element instanceof TypeElement
+                ? processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString()
+                : type.toString();
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = resource.openWriter()) {
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(writer, operators);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unable to write the operator index " + INDEX + ": " + e.getMessage());
+        }
+    }
+}
@@ -11,5 +11,12 @@ public class RegisterForReflectionAnnotator extends AbstractAnnotator {
     public void propertyOrder(JDefinedClass clazz, JsonNode propertiesNode) {
         super.propertyOrder(clazz, propertiesNode);
         clazz.annotate(RegisterForReflection.class);
+        new FromMapGenerator(clazz).generate(propertiesNode);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void propertyInclusion(JDefinedClass clazz, JsonNode schema) {
+        super.propertyInclusion(clazz, schema);
+        new CrdSchemaGenerator(clazz).generate(schema);
+    }
+}
@@ -0,0 +1,57 @@
+package io.radanalytics.operator.benchmarks;
+
+import io.radanalytics.operator.common.EntityInfo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entity of a typical size, a few scalars, a list and a map.
+ */
+public class BenchInfo extends EntityInfo {
+    private String image;
+    private int workers;
+    private boolean metrics;
+    private List<String> args;
+    private Map<String, String> labels;
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    public void setArgs(List<String> args) {
+        this.args = args;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(Map<String, String> labels) {
+        this.labels = labels;
+    }
+}
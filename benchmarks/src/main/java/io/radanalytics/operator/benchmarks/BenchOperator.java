@@ -0,0 +1,21 @@
+package io.radanalytics.operator.benchmarks;
+
+import io.radanalytics.operator.common.AbstractOperator;
+import io.radanalytics.operator.common.Operator;
+
+/**
+ * Operator that is only set up, its index entry is written by the annotator when the benchmarks are compiled.
+ */
+@Operator(forKind = BenchInfo.class, prefix = "radanalytics.io", crd = false, shortNames = {"bench"},
+        additionalPrinterColumnNames = {"Workers"}, additionalPrinterColumnPaths = {".spec.workers"},
+        additionalPrinterColumnTypes = {"integer"})
+public class BenchOperator extends AbstractOperator<BenchInfo> {
+
+    @Override
+    protected void onAdd(BenchInfo entity) {
+    }
+
+    @Override
+    protected void onDelete(BenchInfo entity) {
+    }
+}
@@ -0,0 +1,67 @@
+package io.radanalytics.operator.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.radanalytics.operator.common.EntityConverters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the untyped spec of a custom resource to the entity, as done for each event and each listed item.
+ * <code>newMapper</code> is what <code>CustomResourceWatcher.defaultConvert</code> used to do,
+ * <code>entityConverters</code> is what it does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntityConvertersBenchmark {
+
+    private static final ObjectMapper SHARED = new ObjectMapper();
+
+    private Map<String, Object> spec;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> labels = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            labels.put("label-" + i, "value-" + i);
+        }
+        spec = new LinkedHashMap<>();
+        spec.put("image", "quay.io/radanalyticsio/openshift-spark:2.4");
+        spec.put("workers", 3);
+        spec.put("metrics", true);
+        spec.put("args", Arrays.asList("--conf", "spark.executor.memory=1g", "--verbose"));
+        spec.put("labels", labels);
+    }
+
+    @Benchmark
+    public BenchInfo newMapper() {
+        return new ObjectMapper().convertValue(spec, BenchInfo.class);
+    }
+
+    @Benchmark
+    public BenchInfo sharedMapper() {
+        return SHARED.convertValue(spec, BenchInfo.class);
+    }
+
+    @Benchmark
+    public BenchInfo entityConverters() {
+        return EntityConverters.convert(BenchInfo.class, spec);
+    }
+}
@@ -0,0 +1,51 @@
+package io.radanalytics.operator.benchmarks;
+
+import io.radanalytics.operator.common.Operator;
+import io.radanalytics.operator.common.OperatorIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first read of the settings of an operator in a fresh JVM, which is what the startup pays for: from the
+ * <code>@Operator</code> annotation by reflection or from the index written at build time (including loading and
+ * parsing the index). Each measurement runs in its own fork, so nothing has been loaded or cached yet.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class OperatorIndexBenchmark {
+
+    @Benchmark
+    public int annotation() {
+        Operator annotation = BenchOperator.class.getAnnotation(Operator.class);
+        return annotation.forKind().getName().hashCode() + annotation.named().hashCode()
+                + annotation.prefix().hashCode() + Arrays.hashCode(annotation.shortNames())
+                + annotation.pluralName().hashCode() + (annotation.enabled() ? 1 : 0) + (annotation.crd() ? 1 : 0)
+                + Arrays.hashCode(annotation.additionalPrinterColumnNames())
+                + Arrays.hashCode(annotation.additionalPrinterColumnPaths())
+                + Arrays.hashCode(annotation.additionalPrinterColumnTypes()) + annotation.workers()
+                + (annotation.skipUnchangedGeneration() ? 1 : 0) + annotation.maxBatchSize()
+                + (int) annotation.batchLingerMs() + (annotation.awaitFullReconciliation() ? 1 : 0)
+                + (annotation.differentialReconciliation() ? 1 : 0) + (annotation.memoizeConversion() ? 1 : 0);
+    }
+
+    @Benchmark
+    public int index() {
+        Map<String, Object> entry = OperatorIndex.find(BenchOperator.class);
+        if (entry == null) {
+            throw new IllegalStateException("BenchOperator is not in the index, has the annotator run?");
+        }
+        return entry.hashCode();
+    }
+}
@@ -0,0 +1,133 @@
+package io.radanalytics.operator.benchmarks;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.radanalytics.operator.common.SharedInformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time until the config maps from all the listed namespaces have been listed and watched, by one watch per namespace
+ * (<code>WATCH_MODE=namespaced</code>) or by one cluster-wide watch filtered on the client side
+ * (<code>WATCH_MODE=cluster</code>). The API server is the mock server of the kubernetes client, so the numbers show the
+ * number of round trips rather than the load of a real API server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WatchModeBenchmark {
+
+    private static final Map<String, String> SELECTOR = Collections.singletonMap("radanalytics.io/kind", "bench");
+
+    @Param({"10", "50"})
+    public int namespaces;
+
+    @Param({"10"})
+    public int configMapsPerNamespace;
+
+    private KubernetesServer server;
+    private KubernetesClient client;
+    private Set<String> watched;
+
+    @Setup
+    public void setUp() {
+        server = new KubernetesServer(false, true);
+        server.before();
+        client = server.getClient();
+        watched = new HashSet<>();
+        for (int i = 0; i < namespaces; i++) {
+            String ns = "ns-" + i;
+            watched.add(ns);
+            client.namespaces().create(new NamespaceBuilder().withNewMetadata().withName(ns).endMetadata().build());
+            for (int j = 0; j < configMapsPerNamespace; j++) {
+                client.configMaps().inNamespace(ns).create(new ConfigMapBuilder()
+                        .withNewMetadata().withName("cm-" + j).withLabels(SELECTOR).endMetadata()
+                        .addToData("config", "workers: " + j)
+                        .build());
+            }
+        }
+        // config maps of the namespaces that aren't watched, the cluster-wide watch has to filter them out
+        client.configMaps().inNamespace("other").create(new ConfigMapBuilder()
+                .withNewMetadata().withName("cm").withLabels(SELECTOR).endMetadata()
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.after();
+    }
+
+    @Benchmark
+    public int namespaced() {
+        AtomicInteger listed = new AtomicInteger();
+        SharedInformer.Listener<ConfigMap> listener = listener(listed);
+        List<CompletableFuture<SharedInformer<ConfigMap>>> futures = new ArrayList<>();
+        for (String ns : watched) {
+            futures.add(SharedInformer.subscribeConfigMaps(client, ns, SELECTOR, listener));
+        }
+        for (CompletableFuture<SharedInformer<ConfigMap>> future : futures) {
+            future.join().unsubscribe(listener);
+        }
+        return listed.get();
+    }
+
+    @Benchmark
+    public int cluster() {
+        AtomicInteger listed = new AtomicInteger();
+        SharedInformer.Listener<ConfigMap> listener = listener(listed);
+        SharedInformer.subscribeConfigMaps(client, "*", SELECTOR, listener).join().unsubscribe(listener);
+        return listed.get();
+    }
+
+    private SharedInformer.Listener<ConfigMap> listener(AtomicInteger listed) {
+        return new SharedInformer.Listener<ConfigMap>() {
+            @Override
+            public SharedInformer.ListSink<ConfigMap> onList() {
+                return new SharedInformer.ListSink<ConfigMap>() {
+                    @Override
+                    public void accept(ConfigMap cm) {
+                        if (watched.contains(cm.getMetadata().getNamespace())) {
+                            listed.incrementAndGet();
+                        }
+                    }
+
+                    @Override
+                    public void finish() {
+                    }
+                };
+            }
+
+            @Override
+            public void onEvent(Watcher.Action action, ConfigMap cm) {
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package io.radanalytics.operator;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jcabi.manifests.Manifests;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.ServiceBuilder;
@@ -18,7 +19,12 @@ import io.quarkus.runtime.StartupEvent;
 import io.radanalytics.operator.common.AbstractOperator;
 import io.radanalytics.operator.common.AnsiColors;
 import io.radanalytics.operator.common.EntityInfo;
+import io.radanalytics.operator.common.LeaderElector;
+import io.radanalytics.operator.common.NamespaceDiscovery;
 import io.radanalytics.operator.common.OperatorConfig;
+import io.radanalytics.operator.common.OperatorMetrics;
+import io.radanalytics.operator.common.ReconciliationScheduler;
+import io.radanalytics.operator.common.ShardManager;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -35,6 +41,7 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
@@ -42,12 +49,10 @@ import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static io.radanalytics.operator.common.AnsiColors.*;
 import static io.radanalytics.operator.common.OperatorConfig.ALL_NAMESPACES;
 import static io.radanalytics.operator.common.OperatorConfig.SAME_NAMESPACE;
-import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Entry point class that watches on StartupEvent and should bootstrap all the registered operators
@@ -57,10 +62,15 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 @ApplicationScoped
 public class SDKEntrypoint {
     private static ExecutorService executors;
+    private static ScheduledExecutorService scheduler;
 
     protected OperatorConfig config;
     protected KubernetesClient client;
     protected boolean isOpenShift;
+    protected ReconciliationScheduler reconciliationScheduler;
+    protected LeaderElector leaderElector;
+    protected ShardManager shardManager;
+    protected NamespaceDiscovery namespaceDiscovery;
 
     @Inject
     private Logger log;
@@ -83,23 +93,78 @@ public class SDKEntrypoint {
     void init(){
         config = OperatorConfig.fromMap(System.getenv());
         client = new DefaultKubernetesClient();
+        reconciliationScheduler = new ReconciliationScheduler(config.getReconciliationIntervalS(),
+                config.getReconciliationConcurrency(), config.isReconciliationAdaptive(),
+                config.getReconciliationMinIntervalS(), config.getReconciliationMaxIntervalS());
         checkIfOnOpenshift();
     }
 
     void onStop(@Observes ShutdownEvent event) {
+        if (leaderElector != null) {
+            leaderElector.stop();
+        }
+        if (shardManager != null) {
+            shardManager.stop();
+        }
+        if (namespaceDiscovery != null) {
+            namespaceDiscovery.stop();
+        }
+        reconciliationScheduler.shutdown();
         log.info("Stopped");
     }
 
     public void onStart(@Observes StartupEvent event) {
         log.info("Starting..");
+        if (config.isSharding() && operators != null) {
+            if (config.isLeaderElection()) {
+                log.warn("Both {} and {} are enabled, using only the sharding", OperatorConfig.SHARDING,
+                        OperatorConfig.LEADER_ELECTION);
+            }
+            runSharding();
+        } else if (config.isLeaderElection() && operators != null) {
+            // standby until the lease is acquired, the watches and caches are started anyway
+            operators.forEach(operator -> operator.setActive(false));
+        }
         CompletableFuture<Void> future = run().exceptionally(ex -> {
             log.error("Unable to start operator for one or more namespaces", ex);
             System.exit(1);
             return null;
         });
+        future.thenRun(() -> OperatorMetrics.STARTUP.labels("ready")
+                .set(ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0));
         if (config.isMetrics()) {
             CompletableFuture<Optional<HTTPServer>> maybeMetricServer = future.thenCompose(s -> runMetrics());
         }
+        if (config.isLeaderElection() && !config.isSharding()) {
+            future.thenRun(this::runLeaderElection);
+        }
+    }
+
+    private void runSharding() {
+        String leaseNamespace = Optional.ofNullable(config.getLeaseNamespace()).orElse(client.getNamespace());
+        String identity = Optional.ofNullable(System.getenv("HOSTNAME")).orElse(UUID.randomUUID().toString());
+        // the resources that have become ours are passed to the handlers and an immediate full reconciliation follows
+        shardManager = new ShardManager(client, leaseNamespace, config.getShardingGroup(), identity,
+                config.getLeaseDurationS(), config.getShardingKey(),
+                previousOwnership -> operators.forEach(operator -> {
+                    operator.onRebalance(previousOwnership);
+                    reconciliationScheduler.triggerNow(operator);
+                }));
+        shardManager.start();
+        operators.forEach(operator -> operator.setOwnership(shardManager::owns));
+    }
+
+    private void runLeaderElection() {
+        String leaseNamespace = Optional.ofNullable(config.getLeaseNamespace()).orElse(client.getNamespace());
+        String identity = Optional.ofNullable(System.getenv("HOSTNAME")).orElse(UUID.randomUUID().toString());
+        leaderElector = new LeaderElector(client, leaseNamespace, config.getLeaseName(), identity,
+                config.getLeaseDurationS(),
+                () -> operators.forEach(operator -> {
+                    operator.setActive(true);
+                    reconciliationScheduler.triggerNow(operator);
+                }),
+                () -> operators.forEach(operator -> operator.setActive(false)));
+        leaderElector.start();
     }
 
     private CompletableFuture<Void> run() {
@@ -110,21 +175,58 @@ public class SDKEntrypoint {
             log.info("{}Kubernetes{} environment detected.", AnsiColors.ye(), AnsiColors.xx());
         }
 
+        return initCrds().thenCompose(v -> runOperators());
+    }
+
+    /**
+     * Creates or updates the custom resource definitions of all the operators in parallel, so that the startup
+     * doesn't wait for the API server one definition after another.
+     */
+    private CompletableFuture<Void> initCrds() {
+        if (operators == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture> futures = new ArrayList<>();
+        for (AbstractOperator<? extends EntityInfo> operator : operators) {
+            if (!operator.isEnabled()) {
+                continue;
+            }
+            operator.setClient(client);
+            operator.setOpenshift(isOpenShift);
+            futures.add(CompletableFuture.runAsync(operator::initCrd, getExecutors()));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{})).thenRun(() -> {
+            double seconds = OperatorMetrics.secondsSince(start);
+            OperatorMetrics.STARTUP.labels("crds").set(seconds);
+            log.info("Custom resource definitions have been initialized in {} s", String.format("%.3f", seconds));
+        });
+    }
+
+    private CompletableFuture<Void> runOperators() {
         List<CompletableFuture> futures = new ArrayList<>();
         if (operators != null) {
-            if (SAME_NAMESPACE.equals(config.getNamespaces().iterator().next())) { // current namespace
+            if (config.getNamespaceSelector() != null) {
+                // one cluster-wide watch, the namespaces are added as they are discovered
+                Set<String> watchedNamespaces = ConcurrentHashMap.newKeySet();
+                CompletableFuture future = runForNamespace(isOpenShift, ALL_NAMESPACES, watchedNamespaces)
+                        .thenCompose(v -> runNamespaceDiscovery());
+                futures.add(future);
+            } else if (SAME_NAMESPACE.equals(config.getNamespaces().iterator().next())) { // current namespace
                 String namespace = client.getNamespace();
-                CompletableFuture future = runForNamespace(isOpenShift, namespace, config.getReconciliationIntervalS(), 0);
+                CompletableFuture future = runForNamespace(isOpenShift, namespace, null);
                 futures.add(future);
             } else {
                 if (ALL_NAMESPACES.equals(config.getNamespaces().iterator().next())) {
-                    CompletableFuture future = runForNamespace(isOpenShift, ALL_NAMESPACES, config.getReconciliationIntervalS(), 0);
+                    CompletableFuture future = runForNamespace(isOpenShift, ALL_NAMESPACES, null);
+                    futures.add(future);
+                } else if (isClusterWideWatch(config.getNamespaces())) {
+                    log.info("Watching {} namespaces by one cluster-wide watch", config.getNamespaces().size());
+                    CompletableFuture future = runForNamespace(isOpenShift, ALL_NAMESPACES, config.getNamespaces());
                     futures.add(future);
                 } else {
-                    Iterator<String> ns;
-                    int i;
-                    for (ns = config.getNamespaces().iterator(), i = 0; i < config.getNamespaces().size(); i++) {
-                        CompletableFuture future = runForNamespace(isOpenShift, ns.next(), config.getReconciliationIntervalS(), i);
+                    for (String namespace : config.getNamespaces()) {
+                        CompletableFuture future = runForNamespace(isOpenShift, namespace, null);
                         futures.add(future);
                     }
                 }
@@ -133,6 +235,53 @@ public class SDKEntrypoint {
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{}));
     }
 
+    private CompletableFuture<Void> runNamespaceDiscovery() {
+        List<AbstractOperator<? extends EntityInfo>> enabled = operators.stream()
+                .filter(AbstractOperator::isEnabled)
+                .collect(Collectors.toList());
+        namespaceDiscovery = new NamespaceDiscovery(client, config.getNamespaceSelector(),
+                namespace -> enabled.forEach(operator -> {
+                    long start = System.nanoTime();
+                    // the existing resources are replayed asynchronously
+                    operator.watchNamespace(namespace).thenRun(() ->
+                            OperatorMetrics.NAMESPACE_STARTUP.labels(operator.getEntityName(), namespace)
+                                    .observe(OperatorMetrics.secondsSince(start)));
+                }),
+                namespace -> enabled.forEach(operator -> operator.unwatchNamespace(namespace)));
+        return namespaceDiscovery.start();
+    }
+
+    /**
+     * Decides whether the listed namespaces are watched by one cluster-wide watch per operator (filtered on the
+     * client side) instead of one watch per operator and namespace. In the auto mode, it's the case when there are
+     * at least <code>WATCH_MODE_THRESHOLD</code> namespaces and all the operators are allowed to list their resources
+     * in all the namespaces.
+     */
+    private boolean isClusterWideWatch(Set<String> namespaces) {
+        switch (config.getWatchMode()) {
+            case CLUSTER:
+                return true;
+            case NAMESPACED:
+                return false;
+            default:
+                if (namespaces.size() < config.getWatchModeThreshold()) {
+                    return false;
+                }
+                for (AbstractOperator<? extends EntityInfo> operator : operators) {
+                    if (!operator.isEnabled()) {
+                        continue;
+                    }
+                    operator.setClient(client);
+                    if (!operator.canWatchAllNamespaces()) {
+                        log.info("{} isn't allowed to watch all the namespaces, watching them one by one",
+                                operator.getName());
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+
     private CompletableFuture<Optional<HTTPServer>> runMetrics() {
         HTTPServer httpServer = null;
         try {
@@ -150,7 +299,8 @@ public class SDKEntrypoint {
         return CompletableFuture.supplyAsync(() -> maybeServer);
     }
 
-    private CompletableFuture<Void> runForNamespace(boolean isOpenShift, String namespace, long reconInterval, int delay) {
+    private CompletableFuture<Void> runForNamespace(boolean isOpenShift, String namespace,
+                                                    Set<String> watchedNamespaces) {
         List<AbstractOperator<? extends EntityInfo>> operatorList = operators.stream().collect(Collectors.toList());
 
         if (operatorList.isEmpty()) {
@@ -158,22 +308,24 @@ public class SDKEntrypoint {
         }
 
         List<Future> futures = new ArrayList<>();
-        final int operatorNumber = operatorList.size();
-        IntStream.range(0, operatorNumber).forEach(operatorIndex -> {
-            AbstractOperator operator = operatorList.get(operatorIndex);
+        for (AbstractOperator operator : operatorList) {
             if (!AbstractOperator.class.isAssignableFrom(operator.getClass())) {
                 log.error("Class {} annotated with @Operator doesn't extend the AbstractOperator", operator.getClass());
-                return; // do not fail
+                continue; // do not fail
             }
 
             if (!operator.isEnabled()) {
                 log.info("Skipping initialization of {} operator", operator.getClass());
-                return;
+                continue;
             }
 
             operator.setClient(client);
             operator.setNamespace(namespace);
+            operator.setWatchedNamespaces(watchedNamespaces);
             operator.setOpenshift(isOpenShift);
+            if (operator.getWorkers() <= 0) {
+                operator.setWorkers(config.getWorkerThreads());
+            }
 
             CompletableFuture<Watch> future = operator.start().thenApply(res -> {
                 log.info("{} started in namespace {}", operator.getName(), namespace);
@@ -184,23 +336,10 @@ public class SDKEntrypoint {
                 return null;
             });
 
-            ScheduledExecutorService s = Executors.newScheduledThreadPool(1);
-            int realDelay = (delay * operatorNumber) + operatorIndex + 2;
-            ScheduledFuture<?> scheduledFuture =
-                    s.scheduleAtFixedRate(() -> {
-                        try {
-                            operator.fullReconciliation();
-                            operator.setFullReconciliationRun(true);
-                        } catch (Throwable t) {
-                            log.warn("error during full reconciliation: {}", t.getMessage());
-                            t.printStackTrace();
-                        }
-                    }, realDelay, reconInterval, SECONDS);
-            log.info("full reconciliation for {} scheduled (periodically each {} seconds)", operator.getName(), reconInterval);
-            log.info("the first full reconciliation for {} is happening in {} seconds", operator.getName(), realDelay);
+            reconciliationScheduler.schedule(operator, namespace);
 
             futures.add(future);
-        });
+        }
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[]{}));
     }
 
@@ -273,7 +412,17 @@ public class SDKEntrypoint {
                 OperatorConfig.METRICS_JVM,
                 OperatorConfig.METRICS_PORT,
                 OperatorConfig.FULL_RECONCILIATION_INTERVAL_S,
-                OperatorConfig.OPERATOR_OPERATION_TIMEOUT_MS
+                OperatorConfig.OPERATOR_OPERATION_TIMEOUT_MS,
+                OperatorConfig.WORKER_THREADS,
+                OperatorConfig.FULL_RECONCILIATION_CONCURRENCY,
+                OperatorConfig.FULL_RECONCILIATION_ADAPTIVE,
+                OperatorConfig.FULL_RECONCILIATION_MIN_INTERVAL_S,
+                OperatorConfig.FULL_RECONCILIATION_MAX_INTERVAL_S,
+                OperatorConfig.LEADER_ELECTION,
+                OperatorConfig.SHARDING,
+                OperatorConfig.SHARDING_KEY,
+                OperatorConfig.WATCH_MODE,
+                OperatorConfig.WATCH_NAMESPACE_SELECTOR
         ));
         values.addAll(Arrays.asList(gitSha, version,
                 Optional.ofNullable(System.getenv().get("CRD")).orElse("true"),
@@ -283,7 +432,17 @@ public class SDKEntrypoint {
                 String.valueOf(config.isMetricsJvm()),
                 String.valueOf(config.getMetricsPort()),
                 String.valueOf(config.getReconciliationIntervalS()),
-                String.valueOf(config.getOperationTimeoutMs())
+                String.valueOf(config.getOperationTimeoutMs()),
+                String.valueOf(config.getWorkerThreads()),
+                String.valueOf(config.getReconciliationConcurrency()),
+                String.valueOf(config.isReconciliationAdaptive()),
+                String.valueOf(config.getReconciliationMinIntervalS()),
+                String.valueOf(config.getReconciliationMaxIntervalS()),
+                String.valueOf(config.isLeaderElection()),
+                String.valueOf(config.isSharding()),
+                String.valueOf(config.getShardingKey()),
+                String.valueOf(config.getWatchMode()),
+                String.valueOf(config.getNamespaceSelector())
         ));
 
         Gauge.build()
@@ -301,13 +460,23 @@ public class SDKEntrypoint {
         rootLogger.addAppender(metricsLogAppender);
     }
 
-    public static ExecutorService getExecutors() {
+    public static synchronized ExecutorService getExecutors() {
         if (null == executors) {
             executors = Executors.newFixedThreadPool(10);
         }
         return executors;
     }
 
+    public static synchronized ScheduledExecutorService getScheduler() {
+        if (null == scheduler) {
+            scheduler = Executors.newScheduledThreadPool(1, new ThreadFactoryBuilder()
+                    .setNameFormat("operator-scheduler-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        return scheduler;
+    }
+
     public boolean isOpenShift() {
         return isOpenShift;
     }
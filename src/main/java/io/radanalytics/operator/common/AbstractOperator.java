@@ -3,7 +3,9 @@ package io.radanalytics.operator.common;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapList;
 import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
+import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinitionBuilder;
 import io.fabric8.kubernetes.client.*;
 import io.fabric8.kubernetes.client.dsl.FilterWatchListMultiDeletable;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
@@ -13,9 +15,13 @@ import io.radanalytics.operator.common.crd.InfoClass;
 import io.radanalytics.operator.common.crd.InfoStatus;
 import io.radanalytics.operator.common.crd.InfoClassDoneable;
 import io.radanalytics.operator.common.crd.InfoList;
+import io.radanalytics.operator.resource.HasDataHelper;
 import io.radanalytics.operator.resource.LabelsHelper;
 import org.slf4j.Logger;
 
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import javax.inject.Inject;
 import java.util.List;
@@ -23,6 +29,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -51,6 +59,8 @@ public abstract class AbstractOperator<T extends EntityInfo> {
     protected KubernetesClient client;
     protected boolean isOpenshift;
     protected String namespace;
+    // when namespace is "*", only these namespaces are handled, null means all of them
+    protected Set<String> watchedNamespaces;
 
     // these fields can be directly set from languages that don't support annotations, like JS
     protected String entityName;
@@ -64,16 +74,36 @@ public abstract class AbstractOperator<T extends EntityInfo> {
     protected String[] additionalPrinterColumnNames;
     protected String[] additionalPrinterColumnPaths;
     protected String[] additionalPrinterColumnTypes;
+    protected int workers;
+    protected boolean skipUnchangedGeneration = true;
+    protected int maxBatchSize = 1;
+    protected long batchLingerMs = 100;
+    protected boolean awaitFullReconciliation = true;
+    protected boolean differentialReconciliation = false;
+    protected boolean memoizeConversion = false;
 
     protected volatile boolean fullReconciliationRun = false;
 
     private Map<String, String> selector;
     private String operatorName;
     private CustomResourceDefinition crd;
-
-    private volatile AbstractWatcher watch;
+    private volatile StatusWriter statusWriter;
+    private final HasDataHelper.Memo<T> conversions = new HasDataHelper.Memo<>();
+
+    // the operator can be started for several namespaces, each of them has its own watcher
+    private final Map<String, AbstractWatcher<T>> watchers = new ConcurrentHashMap<>();
+    private final Set<String> startedNamespaces = ConcurrentHashMap.newKeySet();
+    private volatile boolean active = true;
+    private volatile BiPredicate<String, String> ownership = (ns, name) -> true;
+    private final Map<String, DriftReport> driftReports = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> invocationNamespace = new ThreadLocal<>();
+    private final Set<String> reconciledNamespaces = ConcurrentHashMap.newKeySet();
 
     public AbstractOperator() {
+        // the index written at build time saves reading the annotation and the class metadata by reflection
+        if (initFromIndex(OperatorIndex.find(getClass()))) {
+            return;
+        }
         Operator annotation = getClass().getAnnotation(Operator.class);
         if (annotation != null) {
             this.infoClass = (Class<T>) annotation.forKind();
@@ -86,6 +116,13 @@ public abstract class AbstractOperator<T extends EntityInfo> {
             this.additionalPrinterColumnNames = annotation.additionalPrinterColumnNames();
             this.additionalPrinterColumnPaths = annotation.additionalPrinterColumnPaths();
             this.additionalPrinterColumnTypes = annotation.additionalPrinterColumnTypes();
+            this.workers = annotation.workers();
+            this.skipUnchangedGeneration = annotation.skipUnchangedGeneration();
+            this.maxBatchSize = annotation.maxBatchSize();
+            this.batchLingerMs = annotation.batchLingerMs();
+            this.awaitFullReconciliation = annotation.awaitFullReconciliation();
+            this.differentialReconciliation = annotation.differentialReconciliation();
+            this.memoizeConversion = annotation.memoizeConversion();
         } else {
             log.info("Annotation on the operator class not found, falling back to direct field access.");
             log.info("If the initialization fails, it's probably due to the fact that some compulsory fields are missing.");
@@ -93,6 +130,39 @@ public abstract class AbstractOperator<T extends EntityInfo> {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private boolean initFromIndex(Map<String, Object> entry) {
+        if (entry == null) {
+            return false;
+        }
+        try {
+            this.infoClass = (Class<T>) Class.forName(OperatorIndex.string(entry, "forKind"), false,
+                    getClass().getClassLoader());
+            this.named = OperatorIndex.string(entry, "named");
+            this.entityName = OperatorIndex.string(entry, "entityName");
+            this.isCrd = OperatorIndex.bool(entry, "crd");
+            this.enabled = OperatorIndex.bool(entry, "enabled");
+            this.prefix = OperatorIndex.string(entry, "prefix");
+            this.shortNames = OperatorIndex.strings(entry, "shortNames");
+            this.pluralName = OperatorIndex.string(entry, "pluralName");
+            this.additionalPrinterColumnNames = OperatorIndex.strings(entry, "additionalPrinterColumnNames");
+            this.additionalPrinterColumnPaths = OperatorIndex.strings(entry, "additionalPrinterColumnPaths");
+            this.additionalPrinterColumnTypes = OperatorIndex.strings(entry, "additionalPrinterColumnTypes");
+            this.workers = OperatorIndex.number(entry, "workers").intValue();
+            this.skipUnchangedGeneration = OperatorIndex.bool(entry, "skipUnchangedGeneration");
+            this.maxBatchSize = OperatorIndex.number(entry, "maxBatchSize").intValue();
+            this.batchLingerMs = OperatorIndex.number(entry, "batchLingerMs").longValue();
+            this.awaitFullReconciliation = OperatorIndex.bool(entry, "awaitFullReconciliation");
+            this.differentialReconciliation = OperatorIndex.bool(entry, "differentialReconciliation");
+            this.memoizeConversion = OperatorIndex.bool(entry, "memoizeConversion");
+            return true;
+        } catch (ClassNotFoundException | RuntimeException e) {
+            // stale or incompatible index, the annotation overwrites whatever else has been set
+            this.entityName = null;
+            return false;
+        }
+    }
+
     /**
      * In this method, the user of the abstract-operator is assumed to handle the creation of
      * a new entity of type T. This method is called when the config map or custom resource with given
@@ -169,17 +239,72 @@ public abstract class AbstractOperator<T extends EntityInfo> {
     }
 
     private void onAction(T entity, String namespace, Consumer<T> handler) {
-        if (ALL_NAMESPACES.equals(this.namespace)) {
-            //synchronized (this.watch) { // events from the watch should be serialized (1 thread)
+        // handlers may run concurrently (and for several namespaces), so the namespace is bound to the calling
+        // thread, not to the operator
+        try {
+            invocationNamespace.set(namespace);
+            handler.accept(entity);
+        } finally {
+            invocationNamespace.remove();
+        }
+    }
+
+    /**
+     * Returns the namespace of the config map or custom resource that is being handled by the current thread.
+     * When watching all the namespaces (<code>WATCH_NAMESPACE="*"</code>) or several of them, the
+     * <code>namespace</code> field is set to "*" or to the last one and the handlers, that may run in parallel,
+     * should use this method
+     * (or <code>entity.getNamespace()</code>) to find out where the resources should be created.
+     *
+     * @return namespace of the currently handled entity or the namespace the operator is watching
+     */
+    protected String getCurrentNamespace() {
+        return Optional.ofNullable(invocationNamespace.get()).orElse(namespace);
+    }
+
+    /**
+     * Override this method if the operator can handle many changes at once more cheaply than one by one, for
+     * instance when calling an external provisioning API. It's called only if <code>maxBatchSize</code> (see
+     * the {@link Operator} annotation) is greater than 1, then the events are delivered in batches of at most
+     * <code>maxBatchSize</code> events, waiting at most <code>batchLingerMs</code> milliseconds for the batch to fill.
+     * Each batch contains at most one event per config map or custom resource.
+     *
+     * By default, the events are passed one by one to <code>onAdd</code>, <code>onModify</code> and
+     * <code>onDelete</code> and only the events whose handler has failed are retried.
+     *
+     * If this method throws an exception, all the events of the batch are retried, including those that have been
+     * handled already, so the overriding implementation must be idempotent. It can throw
+     * {@link PartialBatchFailureException} to retry only some of the events.
+     *
+     * @param events  changes to handle, each of them carries the action, the entity and its namespace
+     */
+    protected void onBatch(List<Event<T>> events) {
+        List<Event<T>> failed = new ArrayList<>();
+        Exception firstFailure = null;
+        for (Event<T> event : events) {
             try {
-                this.namespace = namespace;
-                handler.accept(entity);
-            } finally {
-                this.namespace = ALL_NAMESPACES;
+                switch (event.getAction()) {
+                    case ADDED:
+                        onAdd(event.getEntity(), event.getNamespace());
+                        break;
+                    case MODIFIED:
+                        onModify(event.getEntity(), event.getNamespace());
+                        break;
+                    case DELETED:
+                        onDelete(event.getEntity(), event.getNamespace());
+                        break;
+                    default:
+                        log.error("Unknown action: {} in namespace {}", event.getAction(), event.getNamespace());
+                }
+            } catch (Exception e) {
+                log.warn("Unable to handle {} of {} in namespace {}: {}", event.getAction(), event.getName(),
+                        event.getNamespace(), e.getMessage());
+                failed.add(event);
+                firstFailure = firstFailure == null ? e : firstFailure;
             }
-            //}
-        } else {
-            handler.accept(entity);
+        }
+        if (!failed.isEmpty()) {
+            throw new PartialBatchFailureException(failed, firstFailure);
         }
     }
 
@@ -192,9 +317,105 @@ public abstract class AbstractOperator<T extends EntityInfo> {
 
     /**
      * Override this method to do a full reconciliation.
+     *
+     * It's called periodically for each namespace the operator has been started for (once for the cluster-wide
+     * watch) and {@link #getCurrentNamespace()} returns that namespace, so the implementation should reconcile only
+     * the resources living there.
+     *
+     * If <code>differentialReconciliation</code> is enabled (see the {@link Operator} annotation), the default
+     * implementation calls {@link #reconcileDrift()}, otherwise it's a no-op.
      */
     public void fullReconciliation() {
-        // no-op by default
+        if (differentialReconciliation) {
+            reconcileDrift();
+        }
+    }
+
+    /**
+     * Runs the full reconciliation for one of the namespaces the operator has been started for. Once it has
+     * completed, the watcher of the namespace starts handing the buffered events to the handlers.
+     *
+     * @param namespace  namespace the operator has been started for ("*" for the cluster-wide watch)
+     */
+    void runFullReconciliation(String namespace) {
+        try {
+            invocationNamespace.set(namespace);
+            fullReconciliation();
+        } finally {
+            invocationNamespace.remove();
+        }
+        fullReconciliationRun = true;
+        reconciledNamespaces.add(namespace);
+        AbstractWatcher<T> w = watchers.get(namespace);
+        if (w != null) {
+            w.setFullReconciliationRun(true);
+        }
+    }
+
+    /**
+     * Compares the desired state with what has been successfully handled by <code>onAdd</code>,
+     * <code>onModify</code> and <code>onDelete</code> and passes to them only the differences: the entities that
+     * have never been handled (so all of them during the first run after the start), those whose content has changed
+     * since and those that don't exist anymore. The handlers are called asynchronously by the worker threads, the
+     * same way as for the events from the watch, and the numbers are exported as the <code>operator_drift_*</code>
+     * metrics. If called from the periodic full reconciliation, only the namespace returned by
+     * {@link #getCurrentNamespace()} is reconciled.
+     *
+     * @return how many entities have been found new, changed and missing
+     */
+    protected DriftReport reconcileDrift() {
+        DriftReport report = DriftReport.NONE;
+        String current = invocationNamespace.get();
+        boolean scoped = current != null && watchers.containsKey(current);
+        for (Map.Entry<String, AbstractWatcher<T>> entry : watchers.entrySet()) {
+            if (scoped && !current.equals(entry.getKey())) {
+                continue;
+            }
+            DriftReport watcherReport = entry.getValue().reconcileDrift();
+            reportDrift(entry.getKey(), watcherReport);
+            report = report.plus(watcherReport);
+        }
+        return report;
+    }
+
+    /**
+     * Custom implementations of <code>fullReconciliation</code> can call this method to tell how many resources
+     * have been found out of sync in the namespace returned by {@link #getCurrentNamespace()}. It's used for adapting
+     * the reconciliation interval (<code>FULL_RECONCILIATION_ADAPTIVE</code>), {@link #reconcileDrift()} calls it
+     * automatically.
+     *
+     * @param report  what the full reconciliation has found
+     */
+    protected void reportDrift(DriftReport report) {
+        reportDrift(getCurrentNamespace(), report);
+    }
+
+    /**
+     * Same as {@link #reportDrift(DriftReport)}, but for given namespace.
+     *
+     * @param namespace  namespace the operator has been started for ("*" for the cluster-wide watch)
+     * @param report     what the full reconciliation has found
+     */
+    protected void reportDrift(String namespace, DriftReport report) {
+        driftReports.put(namespace, report);
+    }
+
+    /**
+     * @param namespace  namespace the operator has been started for ("*" for the cluster-wide watch)
+     * @return the drift reported for the namespace since the last call of this method or null if nothing has been
+     * reported
+     */
+    public DriftReport pollDriftReport(String namespace) {
+        return driftReports.remove(namespace);
+    }
+
+    /**
+     * @param namespace  namespace the operator has been started for ("*" for the cluster-wide watch)
+     * @return how many times the handlers have failed in the namespace since the start
+     */
+    public long getHandlerErrors(String namespace) {
+        AbstractWatcher<T> w = watcherFor(namespace);
+        return w == null ? 0 : w.getHandlerErrors();
     }
 
     /**
@@ -239,6 +460,10 @@ public abstract class AbstractOperator<T extends EntityInfo> {
         return operatorName;
     }
 
+    public String getEntityName() {
+        return entityName;
+    }
+
     /**
      * Starts the operator and creates the watch
      * @return CompletableFuture
@@ -253,18 +478,11 @@ public abstract class AbstractOperator<T extends EntityInfo> {
         }
 
         log.info("Starting {} for namespace {}", operatorName, namespace);
+        final String watchedNamespace = namespace;
+        startedNamespaces.add(watchedNamespace);
 
         if (isCrd) {
-            this.crd = crdDeployer.initCrds(client,
-                                            prefix,
-                                            entityName,
-                                            shortNames,
-                                            pluralName,
-                                            additionalPrinterColumnNames,
-                                            additionalPrinterColumnPaths,
-                                            additionalPrinterColumnTypes,
-                                            infoClass,
-                                            isOpenshift);
+            initCrd();
         }
 
         // onInit() can be overriden in child operators
@@ -272,17 +490,48 @@ public abstract class AbstractOperator<T extends EntityInfo> {
 
         CompletableFuture<? extends AbstractWatcher<T>> future = initializeWatcher();
         future.thenApply(res -> {
-                this.watch = res;
+                watchers.put(watchedNamespace, res);
+                res.setOwnership(ownership);
+                if (!active) {
+                    res.setStandby(true);
+                }
+                if (!awaitFullReconciliation || reconciledNamespaces.contains(watchedNamespace)) {
+                    // a full reconciliation may have completed before the initial list did
+                    res.setFullReconciliationRun(true);
+                }
                 log.info("{}{} running{} for namespace {}", AnsiColors.gr(), operatorName, AnsiColors.xx(),
-                        Optional.ofNullable(namespace).orElse("'all'"));
+                        Optional.ofNullable(watchedNamespace).orElse("'all'"));
                 return res;
         }).exceptionally(e -> {
-            log.error("{} startup failed for namespace {}", operatorName, namespace, e.getCause());
+            log.error("{} startup failed for namespace {}", operatorName, watchedNamespace, e.getCause());
             return null;
         });
         return future;
     }
 
+    /**
+     * Creates the custom resource definition or updates it if it has changed. It's done only once, even if the
+     * operator is started for more namespaces, so the entry point can call it for all the operators in parallel
+     * before starting them.
+     */
+    public synchronized void initCrd() {
+        initInternals();
+        if (!isCrd || crd != null || !checkIntegrity()) {
+            return;
+        }
+        this.crd = crdDeployer.initCrds(client,
+                                        prefix,
+                                        entityName,
+                                        shortNames,
+                                        pluralName,
+                                        additionalPrinterColumnNames,
+                                        additionalPrinterColumnPaths,
+                                        additionalPrinterColumnTypes,
+                                        infoClass,
+                                        isOpenshift);
+        this.statusWriter = new StatusWriter(client, crd, entityName);
+    }
+
     private CompletableFuture<? extends AbstractWatcher<T>> initializeWatcher() {
         CompletableFuture<? extends AbstractWatcher<T>> future;
         if (isCrd) {
@@ -293,8 +542,17 @@ public abstract class AbstractOperator<T extends EntityInfo> {
                     .withNamespace(namespace)
                     .withConvert(this::convertCr)
                     .withOnAdd(this::onAdd)
-                    .withOnDelete(this::onDelete)
+                    .withOnDelete((entity, ns) -> {
+                        onDelete(entity, ns);
+                        statusWriter.forget(ns, entity.getName());
+                    })
                     .withOnModify(this::onModify)
+                    .withWorkers(workers)
+                    .withSkipUnchangedGeneration(skipUnchangedGeneration)
+                    .withWatchedNamespaces(watchedNamespaces)
+                    .withOnBatch(this::onBatch)
+                    .withMaxBatchSize(maxBatchSize)
+                    .withBatchLingerMs(batchLingerMs)
                     .build();
             future = crWatcher.watch();
         } else {
@@ -303,11 +561,16 @@ public abstract class AbstractOperator<T extends EntityInfo> {
                     .withSelector(selector)
                     .withEntityName(entityName)
                     .withNamespace(namespace)
-                    .withConvert(this::convert)
+                    .withConvert(memoizeConversion ? cm -> conversions.convert(cm, this::convert) : this::convert)
                     .withOnAdd(this::onAdd)
                     .withOnDelete(this::onDelete)
                     .withOnModify(this::onModify)
                     .withPredicate(this::isSupported)
+                    .withWatchedNamespaces(watchedNamespaces)
+                    .withWorkers(workers)
+                    .withOnBatch(this::onBatch)
+                    .withMaxBatchSize(maxBatchSize)
+                    .withBatchLingerMs(batchLingerMs)
                     .build();
             future = cmWatcher.watch();
         }
@@ -347,8 +610,12 @@ public abstract class AbstractOperator<T extends EntityInfo> {
     }
 
     public void stop() {
-        log.info("Stopping {} for namespace {}", operatorName, namespace);
-        watch.close();
+        log.info("Stopping {} for namespace(s) {}", operatorName, startedNamespaces);
+        watchers.values().forEach(AbstractWatcher::close);
+        watchers.clear();
+        if (statusWriter != null) {
+            statusWriter.close();
+        }
         client.close();
     }
 
@@ -358,44 +625,169 @@ public abstract class AbstractOperator<T extends EntityInfo> {
      * should also override this method and call it from <code>fullReconciliation()</code> to ensure that the real state
      * is the same as the desired state.
      *
+     * The entities are read from the in-memory cache that is kept up to date by the watch. Only if the cache hasn't
+     * been filled yet, the CMs or CRs are listed from the API server.
+     *
      * @return returns the set of 'T's that correspond to the CMs or CRs that have been created in the K8s
      */
     protected Set<T> getDesiredSet() {
-        Set<T> desiredSet;
+        if (isCacheSynced()) {
+            return cachedEntities().filter(this::isOwned).collect(Collectors.toSet());
+        }
+        return listDesiredSet();
+    }
+
+    /**
+     * Returns the entity with given namespace and name from the in-memory cache.
+     *
+     * @param namespace  namespace of the CM or CR
+     * @param name       name of the CM or CR
+     * @return the entity or empty optional if it's not known (or the watch hasn't been started yet)
+     */
+    protected Optional<T> getDesired(String namespace, String name) {
+        AbstractWatcher<T> w = watcherFor(namespace);
+        return w == null ? Optional.empty() : w.getCache().get(namespace, name);
+    }
+
+    /**
+     * Returns all the entities living in given namespace from the in-memory cache.
+     *
+     * @param namespace  namespace of the CMs or CRs
+     * @return the set of 'T's in that namespace
+     */
+    protected Set<T> getDesiredSet(String namespace) {
+        AbstractWatcher<T> w = watcherFor(namespace);
+        if (w != null && w.getCache().isSynced()) {
+            return w.getCache().values(namespace).stream().filter(this::isOwned).collect(Collectors.toSet());
+        }
+        return listDesired().filter(e -> namespace.equals(e.getNamespace())).collect(Collectors.toSet());
+    }
+
+    /**
+     * Streaming variant of {@link #getDesiredSet()} that doesn't materialize the whole set. If the cache hasn't been
+     * filled yet, the CMs or CRs are listed in pages as the stream is being consumed and converted one by one.
+     *
+     * @return stream of 'T's that correspond to the CMs or CRs that have been created in the K8s
+     */
+    protected Stream<T> streamDesired() {
+        if (isCacheSynced()) {
+            return cachedEntities().filter(this::isOwned);
+        }
+        return listDesired();
+    }
+
+    private boolean isCacheSynced() {
+        return !watchers.isEmpty() && watchers.size() == startedNamespaces.size()
+                && watchers.values().stream().allMatch(w -> w.getCache().isSynced());
+    }
+
+    private Stream<T> cachedEntities() {
+        return watchers.values().stream().flatMap(w -> w.getCache().stream());
+    }
+
+    /**
+     * @param namespace  namespace of the resources
+     * @return the watcher started for the namespace or the one watching all the namespaces, null if there is none
+     */
+    private AbstractWatcher<T> watcherFor(String namespace) {
+        AbstractWatcher<T> w = watchers.get(namespace);
+        return w != null ? w : watchers.get(ALL_NAMESPACES);
+    }
+
+    /**
+     * Calls the action for each entity of the desired state, see {@link #streamDesired()}.
+     *
+     * @param action  action to be performed for each 'T'
+     */
+    protected void forEachDesired(Consumer<T> action) {
+        try (Stream<T> desired = streamDesired()) {
+            desired.forEach(action);
+        }
+    }
+
+    private Set<T> listDesiredSet() {
+        return listDesired().collect(Collectors.toSet());
+    }
+
+    private Stream<T> listDesired() {
+        return listAll().filter(this::isOwned);
+    }
+
+    private Stream<T> listAll() {
+        Set<String> namespaces = startedNamespaces.isEmpty() ? Collections.singleton(namespace) : startedNamespaces;
+        return namespaces.stream().flatMap(this::listAll);
+    }
+
+    private Stream<T> listAll(String namespace) {
         if (isCrd) {
             MixedOperation<InfoClass, InfoList, InfoClassDoneable, Resource<InfoClass, InfoClassDoneable>> aux1 =
                     client.customResources(crd, InfoClass.class, InfoList.class, InfoClassDoneable.class);
             FilterWatchListMultiDeletable<InfoClass, InfoList, Boolean, Watch, Watcher<InfoClass>> aux2 =
                     "*".equals(namespace) ? aux1.inAnyNamespace() : aux1.inNamespace(namespace);
-            CustomResourceList<InfoClass> listAux = aux2.list();
-            List<InfoClass> items = listAux.getItems();
-            desiredSet = items.stream().flatMap(item -> {
+            return new PagedLister<InfoClass>(aux2::list).stream().filter(this::isWatched).flatMap(item -> {
                 try {
                     return Stream.of(convertCr(item));
                 } catch (Exception e) {
                     // ignore this CR
                     return Stream.empty();
                 }
-            }).collect(Collectors.toSet());
+            });
         } else {
             MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> aux1 =
                     client.configMaps();
             FilterWatchListMultiDeletable<ConfigMap, ConfigMapList, Boolean, Watch, Watcher<ConfigMap>> aux2 =
                     "*".equals(namespace) ? aux1.inAnyNamespace() : aux1.inNamespace(namespace);
-            desiredSet = aux2.withLabels(selector)
-                    .list()
-                    .getItems()
-                    .stream()
-                    .flatMap(item -> {
-                        try {
-                            return Stream.of(convert(item));
-                        } catch (Exception e) {
-                            // ignore this CM
-                            return Stream.empty();
-                        }
-                    }).collect(Collectors.toSet());
+            Stream<ConfigMap> items = new PagedLister<ConfigMap>(aux2.withLabels(selector)::list).stream();
+            return items.filter(this::isWatched).flatMap(item -> {
+                try {
+                    T entity = convert(item);
+                    if (entity.getNamespace() == null) {
+                        entity.setNamespace(item.getMetadata().getNamespace());
+                    }
+                    return Stream.of(entity);
+                } catch (Exception e) {
+                    // ignore this CM
+                    return Stream.empty();
+                }
+            });
+        }
+    }
+
+    private boolean isWatched(HasMetadata resource) {
+        return watchedNamespaces == null || watchedNamespaces.contains(resource.getMetadata().getNamespace());
+    }
+
+    /**
+     * Checks whether the operator is allowed to list its config maps or custom resources in all the namespaces, so
+     * that one cluster-wide watch can be used instead of one watch per namespace. If the custom resource definition
+     * doesn't exist yet, the API server still tells whether the request is forbidden.
+     *
+     * @return false if the API server has refused the cluster-wide list
+     */
+    public boolean canWatchAllNamespaces() {
+        initInternals();
+        try {
+            if (isCrd) {
+                String group = prefix.substring(0, prefix.length() - 1);
+                String plural = (pluralName == null || pluralName.isEmpty() ? entityName + "s" : pluralName).toLowerCase();
+                CustomResourceDefinition probe = new CustomResourceDefinitionBuilder()
+                        .withNewMetadata().withName(plural + "." + group).endMetadata()
+                        .withNewSpec()
+                        .withNewNames().withKind(entityName).withPlural(plural).endNames()
+                        .withGroup(group)
+                        .withVersion("v1")
+                        .withScope("Namespaced")
+                        .endSpec()
+                        .build();
+                client.customResources(probe, InfoClass.class, InfoList.class, InfoClassDoneable.class)
+                        .inAnyNamespace().list(1, null);
+            } else {
+                client.configMaps().inAnyNamespace().withLabels(LabelsHelper.forKind(entityName, prefix)).list(1, null);
+            }
+            return true;
+        } catch (KubernetesClientException e) {
+            return e.getCode() != HttpURLConnection.HTTP_FORBIDDEN && e.getCode() != HttpURLConnection.HTTP_UNAUTHORIZED;
         }
-        return desiredSet;
     }
 
     /**
@@ -403,20 +795,19 @@ public abstract class AbstractOperator<T extends EntityInfo> {
      * The status block in the CR has another component 'lastTransitionTime' which is set
      * automatically. Note, this only works for custom resource watchers, it has no effect for configmap watchers.
      *
+     * The status is written asynchronously by the {@link StatusWriter}, this method doesn't wait for the API server.
+     * If it's called several times for the same CR before the status has been written, only the last state is
+     * written, and nothing is written if the state is the same as the one the operator has written the last time
+     * (a status changed by anybody else isn't taken into account).
+     *
      * @param status          String value that will be assigned to the 'state' field in the CR status block
      * @param namespace       The namespace holding the CR to update
      * @param name            The name of the CR to update
      **/
     protected void setCRStatus(String status, String namespace, String name) {
-        if (isCrd) {
-            MixedOperation<InfoClass, InfoList, InfoClassDoneable, Resource<InfoClass, InfoClassDoneable>> crclient =
-                    client.customResources(crd, InfoClass.class, InfoList.class, InfoClassDoneable.class);
-
-            InfoClass cr = crclient.inNamespace(namespace).withName(name).get();
-            if (cr != null) {
-                cr.setStatus(new InfoStatus(status, new Date()));
-                crclient.inNamespace(namespace).withName(name).updateStatus(cr);
-            }
+        StatusWriter writer = this.statusWriter;
+        if (isCrd && writer != null) {
+            writer.write(namespace, name, new InfoStatus(status, new Date()));
         }
     }
 
@@ -432,6 +823,39 @@ public abstract class AbstractOperator<T extends EntityInfo> {
         this.namespace = namespace;
     }
 
+    /**
+     * @param watchedNamespaces  when the operator watches all the namespaces, only the resources from these
+     *                           are handled, null means all of them
+     */
+    public void setWatchedNamespaces(Set<String> watchedNamespaces) {
+        this.watchedNamespaces = watchedNamespaces;
+    }
+
+    /**
+     * Starts handling the resources from the namespace, the operator must have been started for all the namespaces
+     * with a mutable set of the watched namespaces.
+     *
+     * @param namespace  namespace to add
+     * @return completed once the resources existing in the namespace have been passed to the queue
+     */
+    public CompletableFuture<Void> watchNamespace(String namespace) {
+        watchedNamespaces.add(namespace);
+        return CompletableFuture.allOf(watchers.values().stream()
+                .map(w -> w.watchNamespace(namespace))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Stops handling the resources from the namespace, they also disappear from the desired state. Nothing is passed
+     * to the handlers, the resources created for them stay where they are.
+     *
+     * @param namespace  namespace to remove
+     */
+    public void unwatchNamespace(String namespace) {
+        watchedNamespaces.remove(namespace);
+        watchers.values().forEach(w -> w.forgetNamespace(namespace));
+    }
+
     public void setEntityName(String entityName) {
         this.entityName = entityName;
     }
@@ -456,8 +880,99 @@ public abstract class AbstractOperator<T extends EntityInfo> {
         this.named = named;
     }
 
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public void setSkipUnchangedGeneration(boolean skipUnchangedGeneration) {
+        this.skipUnchangedGeneration = skipUnchangedGeneration;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setMemoizeConversion(boolean memoizeConversion) {
+        this.memoizeConversion = memoizeConversion;
+    }
+
+    public void setBatchLingerMs(long batchLingerMs) {
+        this.batchLingerMs = batchLingerMs;
+    }
+
+    public void setAwaitFullReconciliation(boolean awaitFullReconciliation) {
+        this.awaitFullReconciliation = awaitFullReconciliation;
+    }
+
+    public void setDifferentialReconciliation(boolean differentialReconciliation) {
+        this.differentialReconciliation = differentialReconciliation;
+    }
+
+    /**
+     * @return false if this replica is a standby one, i.e. it keeps its cache warm, but doesn't handle the events
+     * and doesn't run the full reconciliation
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+        watchers.values().forEach(w -> w.setStandby(!active));
+    }
+
+    /**
+     * When the resources are sharded among several replicas, this replica handles only those for which the predicate
+     * returns true. It also applies to the desired state returned by <code>getDesiredSet</code> and
+     * <code>streamDesired</code>.
+     *
+     * @param ownership  predicate taking the namespace and the name of the resource
+     */
+    public void setOwnership(BiPredicate<String, String> ownership) {
+        this.ownership = ownership;
+        watchers.values().forEach(w -> w.setOwnership(ownership));
+    }
+
+    /**
+     * @param entity  entity to check
+     * @return true if this replica is responsible for the entity, always true if the resources aren't sharded
+     */
+    protected boolean isOwned(T entity) {
+        return ownership.test(entity.getNamespace(), entity.getName());
+    }
+
+    /**
+     * Called when the resources have been redistributed among the replicas. Unless the differential reconciliation
+     * is enabled (then the full reconciliation that follows sees them as new), the resources that have moved to this
+     * replica are passed to <code>onAdd</code>.
+     *
+     * @param previousOwnership  predicate taking the namespace and the name of the resource, true if this replica has
+     *                           been responsible for it before
+     */
+    public void onRebalance(BiPredicate<String, String> previousOwnership) {
+        if (!differentialReconciliation) {
+            watchers.values().forEach(w -> w.enqueueAdopted(previousOwnership));
+        }
+    }
+
+    /**
+     * Marks whether the full reconciliation has completed, the watchers start handing the buffered events to the
+     * handlers once it has. The watchers attached later (whose initial list has taken longer) pick it up when they
+     * are attached.
+     *
+     * @param fullReconciliationRun  true if the full reconciliation has completed
+     */
     public void setFullReconciliationRun(boolean fullReconciliationRun) {
         this.fullReconciliationRun = fullReconciliationRun;
-        this.watch.setFullReconciliationRun(true);
+        if (fullReconciliationRun) {
+            reconciledNamespaces.addAll(startedNamespaces);
+        } else {
+            reconciledNamespaces.clear();
+        }
+        watchers.values().forEach(w -> w.setFullReconciliationRun(fullReconciliationRun));
     }
 }
@@ -1,28 +1,34 @@
 package io.radanalytics.operator.common;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.fabric8.kubernetes.api.model.ConfigMap;
-import io.fabric8.kubernetes.api.model.ConfigMapList;
-import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.KubernetesClientException;
-import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
-import io.fabric8.kubernetes.client.dsl.MixedOperation;
-import io.fabric8.kubernetes.client.dsl.Resource;
-import io.fabric8.kubernetes.client.dsl.Watchable;
-import io.radanalytics.operator.SDKEntrypoint;
 import io.radanalytics.operator.common.crd.InfoClass;
-import io.radanalytics.operator.common.crd.InfoClassDoneable;
-import io.radanalytics.operator.common.crd.InfoList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static io.radanalytics.operator.common.AnsiColors.*;
 
@@ -30,6 +36,11 @@ public abstract class AbstractWatcher<T extends EntityInfo> {
 
     protected static final Logger log = LoggerFactory.getLogger(AbstractWatcher.class.getName());
 
+    private static final String BATCH = "BATCH";
+    private static final Backoff RETRY_BACKOFF = new Backoff(500, 300_000);
+    // max number of distinct objects buffered before the first full reconciliation
+    private static final int WARM_UP_BUFFER_SIZE = 10_000;
+
     private final boolean isCrd;
     private final String namespace;
     private final String entityName;
@@ -44,15 +55,33 @@ public abstract class AbstractWatcher<T extends EntityInfo> {
     private final Predicate<ConfigMap> isSupported;
     private final Function<ConfigMap, T> convert;
     private final Function<InfoClass, T> convertCr;
+    private final int workers;
+    private final Consumer<List<Event<T>>> onBatch;
+    private final int maxBatchSize;
+    private final long batchLingerMs;
+    // namespaces to pass through when watching all of them, null for all
+    private final Set<String> watchedNamespaces;
+
+    private final WorkQueue<T> queue;
+    private final EntityCache<T> cache = new EntityCache<>();
+    // the last successfully handled entity for each namespace/name
+    private final Map<String, EntityCache.Entry<T>> reconciled = new ConcurrentHashMap<>();
+    private final AtomicLong handlerErrors = new AtomicLong();
+    private volatile ExecutorService worker;
 
-    private volatile Watch watch;
+    private volatile Runnable unsubscribe = () -> { };
+    private volatile Function<String, CompletableFuture<Void>> replay = ns -> CompletableFuture.completedFuture(null);
     protected volatile boolean fullReconciliationRun = false;
+    private volatile boolean standby = false;
+    private volatile BiPredicate<String, String> ownership = (ns, name) -> true;
 
     // use via builder
     protected AbstractWatcher(boolean isCrd, String namespace, String entityName, KubernetesClient client,
                               CustomResourceDefinition crd, Map<String, String> selector, BiConsumer<T, String> onAdd,
                               BiConsumer<T, String> onDelete, BiConsumer<T, String> onModify, Predicate<ConfigMap> isSupported,
-                              Function<ConfigMap, T> convert, Function<InfoClass, T> convertCr) {
+                              Function<ConfigMap, T> convert, Function<InfoClass, T> convertCr, int workers,
+                              Consumer<List<Event<T>>> onBatch, int maxBatchSize, long batchLingerMs,
+                              Set<String> watchedNamespaces) {
         this.isCrd = isCrd;
         this.namespace = namespace;
         this.entityName = entityName;
@@ -65,122 +94,556 @@ public abstract class AbstractWatcher<T extends EntityInfo> {
         this.isSupported = isSupported;
         this.convert = convert;
         this.convertCr = convertCr;
+        this.workers = Math.max(1, workers);
+        this.onBatch = onBatch;
+        this.maxBatchSize = maxBatchSize;
+        this.batchLingerMs = batchLingerMs;
+        this.watchedNamespaces = watchedNamespaces;
+        this.queue = new WorkQueue<>(entityName, namespace, RETRY_BACKOFF, true, WARM_UP_BUFFER_SIZE);
     }
 
     public abstract CompletableFuture<? extends AbstractWatcher<T>> watch();
 
-    protected CompletableFuture<Watch> createConfigMapWatch() {
-        CompletableFuture<Watch> cf = CompletableFuture.supplyAsync(() -> {
-            MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> aux = client.configMaps();
-
-            final boolean inAllNs = "*".equals(namespace);
-            Watchable<Watch, Watcher<ConfigMap>> watchable = inAllNs ? aux.inAnyNamespace().withLabels(selector) :
-                    aux.inNamespace(namespace).withLabels(selector);
-            Watch watch = watchable.watch(new Watcher<ConfigMap>() {
-                @Override
-                public void eventReceived(Action action, ConfigMap cm) {
-                    if (isSupported.test(cm)) {
-                        log.info("ConfigMap in namespace {} was {}\nCM:\n{}\n", namespace, action, cm);
-                        T entity = convert.apply(cm);
-                        if (entity == null) {
-                            log.error("something went wrong, unable to parse {} definition", entityName);
-                        }
-                        if (action.equals(Action.ERROR)) {
-                            log.error("Failed ConfigMap {} in namespace{} ", cm, namespace);
-                        } else {
-                            handleAction(action, entity, inAllNs ? cm.getMetadata().getNamespace() : namespace);
-                        }
-                    } else {
-                        log.error("Unknown CM kind: {}", cm.toString());
-                    }
-                }
+    protected CompletableFuture<Void> createConfigMapWatch() {
+        SharedInformer.Listener<ConfigMap> listener = new SharedInformer.Listener<ConfigMap>() {
+            @Override
+            public SharedInformer.ListSink<ConfigMap> onList() {
+                return new CacheFill<>(cm -> isWatched(cm) && matchesSelector(cm) && isSupported.test(cm), convert);
+            }
 
-                @Override
-                public void onClose(KubernetesClientException e) {
-                    if (e != null) {
-                        log.error("Watcher closed with exception in namespace {}", namespace, e);
-                        recreateWatcher();
-                    } else {
-                        log.info("Watcher closed in namespace {}", namespace);
+            @Override
+            public void onEvent(Watcher.Action action, ConfigMap cm) {
+                if (!isWatched(cm) || !matchesSelector(cm)) {
+                    // config map of another operator sharing the watch
+                    return;
+                }
+                if (isSupported.test(cm)) {
+                    log.info("ConfigMap in namespace {} was {}\nCM:\n{}\n", namespace, action, cm);
+                    OperatorMetrics.EVENTS_RECEIVED.labels(entityName, cm.getMetadata().getNamespace(),
+                            action.name()).inc();
+                    if (action.equals(Watcher.Action.ERROR)) {
+                        log.error("Failed ConfigMap {} in namespace{} ", cm, namespace);
+                        return;
                     }
+                    T entity = convertSafely(convert, cm);
+                    if (entity == null) {
+                        log.error("something went wrong, unable to parse {} definition", entityName);
+                    }
+                    onWatchEvent(action, entity, cm, inAllNs() ? cm.getMetadata().getNamespace() : namespace);
+                } else {
+                    log.error("Unknown CM kind: {}", cm.toString());
                 }
-            });
-            return watch;
-        }, SDKEntrypoint.getExecutors());
-        cf.thenApply(w -> {
-            log.info("ConfigMap watcher running for labels {}", selector);
-            return w;
-        }).exceptionally(e -> {
+            }
+        };
+        CompletableFuture<Void> cf = SharedInformer.subscribeConfigMaps(client, namespace, selector, listener)
+                .thenAccept(informer -> {
+                    this.unsubscribe = () -> informer.unsubscribe(listener);
+                    this.replay = ns -> informer.replay(listener, ns);
+                });
+        cf.thenRun(() -> log.info("ConfigMap watcher running for labels {}", selector)).exceptionally(e -> {
             log.error("ConfigMap watcher failed to start", e.getCause());
             return null;
         });
         return cf;
     }
 
-    protected CompletableFuture<Watch> createCustomResourceWatch() {
-        CompletableFuture<Watch> cf = CompletableFuture.supplyAsync(() -> {
-            MixedOperation<InfoClass, InfoList, InfoClassDoneable, Resource<InfoClass, InfoClassDoneable>> aux =
-                    client.customResources(crd, InfoClass.class, InfoList.class, InfoClassDoneable.class);
+    protected CompletableFuture<Void> createCustomResourceWatch() {
+        SharedInformer.Listener<InfoClass> listener = new SharedInformer.Listener<InfoClass>() {
+            @Override
+            public SharedInformer.ListSink<InfoClass> onList() {
+                return new CacheFill<>(info -> isWatched(info), convertCr);
+            }
 
-            final boolean inAllNs = "*".equals(namespace);
-            Watchable<Watch, Watcher<InfoClass>> watchable = inAllNs ? aux.inAnyNamespace() : aux.inNamespace(namespace);
-            Watch watch = watchable.watch(new Watcher<InfoClass>() {
-                @Override
-                public void eventReceived(Action action, InfoClass info) {
-                    log.info("Custom resource in namespace {} was {}\nCR:\n{}", namespace, action, info);
-                    T entity = convertCr.apply(info);
-                    if (entity == null) {
-                        log.error("something went wrong, unable to parse {} definition", entityName);
-                    }
-                    if (action.equals(Action.ERROR)) {
-                        log.error("Failed Custom resource {} in namespace{} ", info, namespace);
-                    } else {
-                        handleAction(action, entity, inAllNs ? info.getMetadata().getNamespace() : namespace);
-                    }
+            @Override
+            public void onEvent(Watcher.Action action, InfoClass info) {
+                if (!isWatched(info)) {
+                    return;
                 }
-
-                @Override
-                public void onClose(KubernetesClientException e) {
-                    if (e != null) {
-                        log.error("Watcher closed with exception in namespace {}", namespace, e);
-                        recreateWatcher();
-                    } else {
-                        log.info("Watcher closed in namespace {}", namespace);
-                    }
+                log.info("Custom resource in namespace {} was {}\nCR:\n{}", namespace, action, info);
+                OperatorMetrics.EVENTS_RECEIVED.labels(entityName, info.getMetadata().getNamespace(),
+                        action.name()).inc();
+                if (action.equals(Watcher.Action.ERROR)) {
+                    log.error("Failed Custom resource {} in namespace{} ", info, namespace);
+                    return;
+                }
+                T entity = convertSafely(convertCr, info);
+                if (entity == null) {
+                    log.error("something went wrong, unable to parse {} definition", entityName);
                 }
-            });
-            AbstractWatcher.this.watch = watch;
-            return watch;
-        }, SDKEntrypoint.getExecutors());
-        cf.thenApply(w -> {
-            log.info("CustomResource watcher running for kinds {}", entityName);
-            return w;
-        }).exceptionally(e -> {
+                onWatchEvent(action, entity, info, inAllNs() ? info.getMetadata().getNamespace() : namespace);
+            }
+        };
+        CompletableFuture<Void> cf = SharedInformer.subscribeCustomResources(client, crd, namespace, listener)
+                .thenAccept(informer -> {
+                    this.unsubscribe = () -> informer.unsubscribe(listener);
+                    this.replay = ns -> informer.replay(listener, ns);
+                });
+        cf.thenRun(() -> log.info("CustomResource watcher running for kinds {}", entityName)).exceptionally(e -> {
             log.error("CustomResource watcher failed to start", e.getCause());
             return null;
         });
         return cf;
     }
 
-    private void recreateWatcher() {
-        this.watch.close();
-        CompletableFuture<Watch> configMapWatch = isCrd ? createCustomResourceWatch() : createConfigMapWatch();
-        final String crdOrCm = isCrd ? "CustomResource" : "ConfigMap";
-        configMapWatch.thenApply(res -> {
-            log.info("{} watch recreated in namespace {}", crdOrCm, namespace);
-            this.watch = res;
-            return res;
-        }).exceptionally(e -> {
-            log.error("Failed to recreate {} watch in namespace {}", crdOrCm, namespace);
-            return null;
-        });
+    private boolean inAllNs() {
+        return "*".equals(namespace);
+    }
+
+    private boolean isWatched(HasMetadata resource) {
+        return watchedNamespaces == null || watchedNamespaces.contains(resource.getMetadata().getNamespace());
+    }
+
+    /**
+     * Starts passing the resources from the namespace to the handlers, those that already exist are passed as ADDED
+     * events. The namespace must have been already added to the set of the watched namespaces.
+     *
+     * @param ns  namespace that has been added to the watched namespaces
+     * @return completed once the existing resources have been passed to the queue
+     */
+    public CompletableFuture<Void> watchNamespace(String ns) {
+        return replay.apply(ns);
+    }
+
+    /**
+     * Drops the cached resources from the namespace, so that they aren't part of the desired state anymore. The
+     * namespace must have been already removed from the set of the watched namespaces, the pending events from it
+     * are skipped.
+     *
+     * @param ns  namespace that has been removed from the watched namespaces
+     */
+    public void forgetNamespace(String ns) {
+        for (String key : cache.keys()) {
+            cache.getEntry(key)
+                    .filter(entry -> ns.equals(entry.getNamespace()))
+                    .ifPresent(entry -> cache.remove(entry.getNamespace(), entry.getName()));
+        }
+        reconciled.values().removeIf(entry -> ns.equals(entry.getNamespace()));
+        log.info("{}(s) in namespace {} aren't watched anymore", entityName, ns);
+    }
+
+    private boolean matchesSelector(HasMetadata resource) {
+        if (selector == null || selector.isEmpty()) {
+            return true;
+        }
+        Map<String, String> labels = resource.getMetadata().getLabels();
+        return labels != null && labels.entrySet().containsAll(selector.entrySet());
+    }
+
+    /**
+     * Starts the worker threads that take the events from the work queue and pass them to the handlers. Events for
+     * different objects are handled in parallel, while the events for the same object are handled one by one in the
+     * order they came, because the queue doesn't hand out a key that is still being processed.
+     */
+    protected void startProcessing() {
+        if (worker != null) {
+            return;
+        }
+        worker = Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder()
+                .setNameFormat(entityName + "-worker-%d")
+                .setDaemon(true)
+                .build());
+        boolean batching = onBatch != null && maxBatchSize > 1;
+        for (int i = 0; i < workers; i++) {
+            worker.submit(batching ? this::processBatches : this::processQueue);
+        }
+    }
+
+    /**
+     * Replaces the content of the cache by the result of the list call. If the cache has been already filled before
+     * (the objects are being listed again after the watch has lost its resource version), the differences between
+     * the old and the new content are enqueued as events. The items are converted as the pages arrive, the raw
+     * resources are kept only once in the store of the shared informer.
+     */
+    private class CacheFill<R extends HasMetadata> implements SharedInformer.ListSink<R> {
+        private final Predicate<R> filter;
+        private final Function<R, T> conv;
+        private final Map<String, EntityCache.Entry<T>> entries = new HashMap<>();
+        private final Set<String> irrelevant = new HashSet<>();
+
+        private CacheFill(Predicate<R> filter, Function<R, T> conv) {
+            this.filter = filter;
+            this.conv = conv;
+        }
+
+        @Override
+        public void accept(R item) {
+            if (!filter.test(item)) {
+                return;
+            }
+            T entity = convertSafely(conv, item);
+            if (entity == null) {
+                return;
+            }
+            ObjectMeta metadata = item.getMetadata();
+            if (entity.getNamespace() == null) {
+                entity.setNamespace(metadata.getNamespace());
+            }
+            String key = Event.keyOf(metadata.getNamespace(), metadata.getName());
+            // on the initial list this only records what has been seen
+            Watcher.Action action = cache.getEntry(key).isPresent() ? Watcher.Action.MODIFIED : Watcher.Action.ADDED;
+            if (!isRelevant(action, metadata, entity)) {
+                irrelevant.add(key);
+            }
+            entries.put(key,
+                    new EntityCache.Entry<>(entity, metadata.getNamespace(), metadata.getName(),
+                            metadata.getResourceVersion()));
+        }
+
+        @Override
+        public void finish() {
+            if (cache.isSynced()) {
+                enqueueDifferences(entries, irrelevant);
+            }
+            cache.replace(entries);
+            log.info("{} {}(s) cached for namespace {}", entries.size(), entityName, namespace);
+        }
+    }
+
+    private <R extends HasMetadata> T convertSafely(Function<R, T> conv, R resource) {
+        T entity = null;
+        try {
+            entity = conv.apply(resource);
+        } catch (Exception e) {
+            log.warn("Unable to convert {} {} in namespace {}: {}", entityName, resource.getMetadata().getName(),
+                    resource.getMetadata().getNamespace(), e.getMessage());
+        }
+        if (entity == null) {
+            OperatorMetrics.CONVERSION_FAILURES.labels(entityName, resource.getMetadata().getNamespace()).inc();
+        }
+        return entity;
+    }
+
+    private void enqueueDifferences(Map<String, EntityCache.Entry<T>> entries, Set<String> irrelevant) {
+        for (Map.Entry<String, EntityCache.Entry<T>> e : entries.entrySet()) {
+            EntityCache.Entry<T> entry = e.getValue();
+            Optional<EntityCache.Entry<T>> old = cache.getEntry(e.getKey());
+            if (!old.isPresent()) {
+                enqueue(Watcher.Action.ADDED, entry.getEntity(), entry.getNamespace(), entry.getName());
+            } else if (!Objects.equals(old.get().getResourceVersion(), entry.getResourceVersion())
+                    && !irrelevant.contains(e.getKey())) {
+                enqueue(Watcher.Action.MODIFIED, entry.getEntity(), entry.getNamespace(), entry.getName());
+            }
+        }
+        for (String key : cache.keys()) {
+            if (!entries.containsKey(key)) {
+                cache.getEntry(key).ifPresent(old -> {
+                    ObjectMeta metadata = new ObjectMeta();
+                    metadata.setNamespace(old.getNamespace());
+                    metadata.setName(old.getName());
+                    isRelevant(Watcher.Action.DELETED, metadata, old.getEntity());
+                    enqueue(Watcher.Action.DELETED, old.getEntity(), old.getNamespace(), old.getName());
+                });
+            }
+        }
+    }
+
+    private void onWatchEvent(Watcher.Action action, T entity, HasMetadata resource, String ns) {
+        ObjectMeta metadata = resource.getMetadata();
+        if (action != Watcher.Action.DELETED) {
+            String cachedVersion = cache.getEntry(Event.keyOf(metadata.getNamespace(), metadata.getName()))
+                    .map(EntityCache.Entry::getResourceVersion)
+                    .orElse(null);
+            if (metadata.getResourceVersion() != null && metadata.getResourceVersion().equals(cachedVersion)) {
+                log.debug("{} {} in namespace {} has already been seen in version {}, skipping", entityName,
+                        metadata.getName(), metadata.getNamespace(), cachedVersion);
+                return;
+            }
+        }
+        boolean relevant = isRelevant(action, metadata, entity);
+        updateCache(action, entity, resource);
+        if (relevant) {
+            enqueue(action, entity, ns, metadata.getName());
+        }
+    }
+
+    /**
+     * Decides whether the change of the resource should be passed to the handlers. It's called for every event
+     * and for every listed resource, so that the implementations can keep track of what they have seen. The cache
+     * is updated regardless of the result.
+     *
+     * @param action    what has happened to the resource
+     * @param metadata  metadata of the resource
+     * @param entity    the converted resource that would be passed to the handlers
+     * @return true if the handlers should be called
+     */
+    protected boolean isRelevant(Watcher.Action action, ObjectMeta metadata, T entity) {
+        return true;
+    }
+
+    /**
+     * Called once the handler of the event has finished successfully.
+     *
+     * @param event  the handled event
+     */
+    protected void onHandled(Event<T> event) {
+        // no-op by default
     }
 
-    private void handleAction(Watcher.Action action, T entity, String ns) {
-        if (!fullReconciliationRun) {
+    /**
+     * @param key  <code>namespace/name</code>
+     * @return true if an event for the key is waiting, being handled or waiting for a retry
+     */
+    protected boolean isQueued(String key) {
+        return queue.contains(key);
+    }
+
+    /**
+     * @return true once the cache has been filled by the first list
+     */
+    protected boolean isCacheSynced() {
+        return cache.isSynced();
+    }
+
+    private void updateCache(Watcher.Action action, T entity, HasMetadata resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        if (action == Watcher.Action.DELETED) {
+            cache.remove(metadata.getNamespace(), metadata.getName());
+        } else if (entity != null) {
+            if (entity.getNamespace() == null) {
+                entity.setNamespace(metadata.getNamespace());
+            }
+            cache.put(metadata.getNamespace(), metadata.getName(), entity, metadata.getResourceVersion());
+        }
+    }
+
+    /**
+     * Until the first full reconciliation has finished, the queue is paused and the events are only buffered there.
+     */
+    private void enqueue(Watcher.Action action, T entity, String ns, String name) {
+        if (entity == null) {
             return;
         }
+        if (entity.getNamespace() == null) {
+            entity.setNamespace(ns);
+        }
+        queue.add(new Event<>(action, entity, ns, name));
+    }
+
+    private void processQueue() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Event<T> event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event == null) {
+                return; // queue has been shut down
+            }
+            try {
+                if (!owns(event)) {
+                    skip(event);
+                } else if (handleAction(event.getAction(), event.getEntity(), event.getNamespace())) {
+                    markReconciled(event);
+                } else {
+                    long delay = queue.retryLater(event);
+                    log.info("{} {} will be retried in {} ms", entityName, event.getName(), delay);
+                }
+            } finally {
+                queue.done(event);
+            }
+        }
+    }
+
+    private void processBatches() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Event<T>> batch;
+            try {
+                batch = queue.takeBatch(maxBatchSize, batchLingerMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch.isEmpty()) {
+                return; // queue has been shut down
+            }
+            List<Event<T>> foreign = batch.stream().filter(e -> !owns(e)).collect(Collectors.toList());
+            if (!foreign.isEmpty()) {
+                foreign.forEach(this::skip);
+                foreign.forEach(queue::done);
+                batch = batch.stream().filter(this::owns).collect(Collectors.toList());
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            OperatorMetrics.BATCH_SIZE.labels(entityName, namespace).observe(batch.size());
+            long start = System.nanoTime();
+            try {
+                log.info("{}handling{} batch of {} {} event(s)", gr(), xx(), batch.size(), entityName);
+                onBatch.accept(batch);
+                batch.forEach(this::markReconciled);
+            } catch (PartialBatchFailureException e) {
+                OperatorMetrics.HANDLER_ERRORS.labels(entityName, namespace, BATCH).inc();
+                handlerErrors.incrementAndGet();
+                log.warn("{}Error{} when reacting on batch of events, {} of {} event(s) will be retried", re(), xx(),
+                        e.getFailed().size(), batch.size(), e.getCause());
+                for (Event<T> event : batch) {
+                    if (e.getFailed().contains(event)) {
+                        queue.retryLater(event);
+                    } else {
+                        markReconciled(event);
+                    }
+                }
+            } catch (Exception e) {
+                OperatorMetrics.HANDLER_ERRORS.labels(entityName, namespace, BATCH).inc();
+                handlerErrors.incrementAndGet();
+                log.warn("{}Error{} when reacting on batch of events, the batch will be retried", re(), xx(), e);
+                batch.forEach(queue::retryLater);
+            } finally {
+                OperatorMetrics.HANDLER_DURATION.labels(entityName, namespace, BATCH)
+                        .observe(OperatorMetrics.secondsSince(start));
+                batch.forEach(queue::done);
+            }
+        }
+    }
+
+    private boolean owns(Event<T> event) {
+        return owns(event.getNamespace(), event.getName());
+    }
+
+    private boolean owns(String ns, String name) {
+        return (watchedNamespaces == null || watchedNamespaces.contains(ns)) && ownership.test(ns, name);
+    }
+
+    private void skip(Event<T> event) {
+        log.debug("{} {} in namespace {} isn't handled by this replica, skipping", entityName, event.getName(),
+                event.getNamespace());
+        queue.forget(event.getKey());
+        // if it becomes ours later, the differential reconciliation will see it as new
+        reconciled.remove(event.getKey());
+    }
+
+    /**
+     * Only the events of the resources for which the predicate returns true are passed to the handlers, the others
+     * are handled by other replicas.
+     *
+     * @param ownership  predicate taking the namespace and the name of the resource
+     */
+    public void setOwnership(BiPredicate<String, String> ownership) {
+        this.ownership = ownership;
+    }
+
+    private void markReconciled(Event<T> event) {
+        String key = event.getKey();
+        queue.forget(key);
+        onHandled(event);
+        if (event.getAction() == Watcher.Action.DELETED) {
+            reconciled.remove(key);
+        } else {
+            // share the cache entry (and its hash) if it holds the very same entity
+            EntityCache.Entry<T> cached = cache.getEntry(key).orElse(null);
+            reconciled.put(key, cached != null && cached.getEntity() == event.getEntity() ? cached
+                    : new EntityCache.Entry<>(event.getEntity(), event.getNamespace(), event.getName(), null));
+        }
+    }
+
+    /**
+     * Compares the cache with what has been successfully handled and enqueues ADDED events for the entities that
+     * have never been handled, MODIFIED for those whose content has changed since and DELETED for those that don't
+     * exist anymore. Entities that already have an event in the queue are skipped.
+     *
+     * @return what has been found and enqueued, {@link DriftReport#NONE} if the cache hasn't been filled yet
+     */
+    public DriftReport reconcileDrift() {
+        if (!cache.isSynced()) {
+            log.info("Cache of {} in namespace {} isn't ready yet, skipping the differential reconciliation",
+                    entityName, namespace);
+            return DriftReport.NONE;
+        }
+        int added = 0, changed = 0, missing = 0;
+        for (String key : cache.keys()) {
+            Optional<EntityCache.Entry<T>> current = cache.getEntry(key);
+            if (!current.isPresent() || queue.contains(key)) {
+                continue;
+            }
+            EntityCache.Entry<T> entry = current.get();
+            if (!owns(entry.getNamespace(), entry.getName())) {
+                reconciled.remove(key);
+                continue;
+            }
+            EntityCache.Entry<T> last = reconciled.get(key);
+            Watcher.Action action = null;
+            if (last == null) {
+                action = Watcher.Action.ADDED;
+                added++;
+            } else if (last != entry && !last.getContentHash().equals(entry.getContentHash())) {
+                action = Watcher.Action.MODIFIED;
+                changed++;
+            }
+            if (action != null) {
+                enqueueUnbounded(action, entry.getEntity(), entry.getNamespace(), entry.getName());
+            }
+        }
+        for (Map.Entry<String, EntityCache.Entry<T>> e : reconciled.entrySet()) {
+            EntityCache.Entry<T> last = e.getValue();
+            if (!owns(last.getNamespace(), last.getName())) {
+                reconciled.remove(e.getKey());
+            } else if (!cache.getEntry(e.getKey()).isPresent() && !queue.contains(e.getKey())) {
+                enqueueUnbounded(Watcher.Action.DELETED, last.getEntity(), last.getNamespace(), last.getName());
+                missing++;
+            }
+        }
+        DriftReport report = new DriftReport(added, changed, missing);
+        recordDrift("added", added);
+        recordDrift("changed", changed);
+        recordDrift("missing", missing);
+        if (report.hasDrift()) {
+            log.info("Differential reconciliation of {} in namespace {} found {}", entityName, namespace, report);
+        }
+        return report;
+    }
+
+    /**
+     * Enqueues ADDED events for the cached entities that have moved to this replica when the resources have been
+     * redistributed among the replicas, their previous owner may not have handled their latest state. Entities that
+     * already have an event in the queue are skipped.
+     *
+     * @param previousOwnership  predicate taking the namespace and the name of the resource, true if it has been ours
+     *                           before the redistribution
+     * @return how many entities have been enqueued, 0 if the cache hasn't been filled yet
+     */
+    public int enqueueAdopted(BiPredicate<String, String> previousOwnership) {
+        if (!cache.isSynced()) {
+            // the first full reconciliation picks them up
+            return 0;
+        }
+        int adopted = 0;
+        for (String key : cache.keys()) {
+            Optional<EntityCache.Entry<T>> current = cache.getEntry(key);
+            if (!current.isPresent() || queue.contains(key)) {
+                continue;
+            }
+            EntityCache.Entry<T> entry = current.get();
+            if (owns(entry.getNamespace(), entry.getName())
+                    && !previousOwnership.test(entry.getNamespace(), entry.getName())) {
+                enqueueUnbounded(Watcher.Action.ADDED, entry.getEntity(), entry.getNamespace(), entry.getName());
+                adopted++;
+            }
+        }
+        if (adopted > 0) {
+            log.info("{} {}(s) in namespace {} have moved to this replica", adopted, entityName, namespace);
+        }
+        return adopted;
+    }
+
+    private void recordDrift(String kind, int count) {
+        OperatorMetrics.DRIFT.labels(entityName, namespace, kind).set(count);
+        OperatorMetrics.DRIFT_DETECTED.labels(entityName, namespace, kind).inc(count);
+    }
+
+    private void enqueueUnbounded(Watcher.Action action, T entity, String ns, String name) {
+        queue.add(new Event<>(action, entity, ns, name), false);
+    }
+
+    /**
+     * Passes the event to the handler.
+     *
+     * @return false if the handler has failed and the event should be retried
+     */
+    private boolean handleAction(Watcher.Action action, T entity, String ns) {
         String name = entity.getName();
+        long start = System.nanoTime();
         try {
             switch (action) {
                 case ADDED:
@@ -201,20 +664,69 @@ public abstract class AbstractWatcher<T extends EntityInfo> {
                 default:
                     log.error("Unknown action: {} in namespace {}", action, namespace);
             }
+            return true;
         } catch (Exception e) {
-            log.warn("{}Error{} when reacting on event, cause: {}", re(), xx(), e.getMessage());
-            e.printStackTrace();
+            OperatorMetrics.HANDLER_ERRORS.labels(entityName, ns, action.name()).inc();
+            handlerErrors.incrementAndGet();
+            log.warn("{}Error{} when reacting on event, cause: {}", re(), xx(), e.getMessage(), e);
+            return false;
+        } finally {
+            OperatorMetrics.HANDLER_DURATION.labels(entityName, ns, action.name())
+                    .observe(OperatorMetrics.secondsSince(start));
         }
     }
 
     public void close() {
         log.info("Stopping {} for namespace {}", isCrd ? "CustomResourceWatch" : "ConfigMapWatch", namespace);
-        watch.close();
-        client.close();
+        unsubscribe.run();
+        queue.shutdown();
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+        // the client is shared with the other subscribers of the watch, the operator closes it
+    }
+
+    /**
+     * @return how many times the handlers have failed since the start
+     */
+    public long getHandlerErrors() {
+        return handlerErrors.get();
     }
 
-    public void setFullReconciliationRun(boolean fullReconciliationRun) {
+    /**
+     * @return the cache of the entities that is kept up to date by this watcher
+     */
+    public EntityCache<T> getCache() {
+        return cache;
+    }
+
+    public synchronized void setFullReconciliationRun(boolean fullReconciliationRun) {
         this.fullReconciliationRun = fullReconciliationRun;
+        if (fullReconciliationRun && !standby) {
+            resume();
+        }
+    }
+
+    /**
+     * A watcher in the standby mode keeps the watch and the cache up to date, but doesn't pass the events to the
+     * handlers, they are only buffered (and coalesced) in the queue.
+     *
+     * @param standby  true to stop handling the events, false to continue once the full reconciliation has run
+     */
+    public synchronized void setStandby(boolean standby) {
+        this.standby = standby;
+        if (standby) {
+            queue.pause();
+        } else if (fullReconciliationRun) {
+            resume();
+        }
+    }
+
+    private void resume() {
+        int buffered = queue.resume();
+        if (buffered > 0) {
+            log.info("Replaying {} buffered {} event(s) in namespace {}", buffered, entityName, namespace);
+        }
     }
 }
 
@@ -0,0 +1,32 @@
+package io.radanalytics.operator.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter. The delay doubles with each attempt up to the maximum and then a random value
+ * from its upper half is taken, so that many clients failing at the same moment don't retry at the same moment.
+ */
+public class Backoff {
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+
+    public Backoff(long initialDelayMs, long maxDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param attempt  number of the previous unsuccessful attempts, starting from 0
+     * @return how many milliseconds to wait before the next attempt
+     */
+    public long delayMs(int attempt) {
+        long exp = initialDelayMs << Math.min(attempt, 30);
+        long capped = exp <= 0 ? maxDelayMs : Math.min(maxDelayMs, exp);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+}
@@ -5,9 +5,12 @@ import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.radanalytics.operator.resource.HasDataHelper;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -24,8 +27,14 @@ public class ConfigMapWatcher<T extends EntityInfo> extends AbstractWatcher<T> {
                              BiConsumer<T, String> onDelete,
                              BiConsumer<T, String> onModify,
                              Predicate<ConfigMap> predicate,
-                             Function<ConfigMap, T> convert) {
-        super(true, namespace, entityName, client, null, selector, onAdd, onDelete, onModify, predicate, convert, null);
+                             Function<ConfigMap, T> convert,
+                             int workers,
+                             Consumer<List<Event<T>>> onBatch,
+                             int maxBatchSize,
+                             long batchLingerMs,
+                             Set<String> watchedNamespaces) {
+        super(false, namespace, entityName, client, null, selector, onAdd, onDelete, onModify, predicate, convert, null,
+                workers, onBatch, maxBatchSize, batchLingerMs, watchedNamespaces);
     }
 
     public static class Builder<T> {
@@ -40,6 +49,11 @@ public class ConfigMapWatcher<T extends EntityInfo> extends AbstractWatcher<T> {
         private BiConsumer<T, String> onModify;
         private Predicate<ConfigMap> predicate;
         private Function<ConfigMap, T> convert;
+        private int workers = 1;
+        private Consumer<List<Event<T>>> onBatch;
+        private int maxBatchSize = 1;
+        private long batchLingerMs = 0;
+        private Set<String> watchedNamespaces;
 
         public Builder<T> withNamespace(String namespace) {
             this.namespace = namespace;
@@ -86,12 +100,41 @@ public class ConfigMapWatcher<T extends EntityInfo> extends AbstractWatcher<T> {
             return this;
         }
 
+        public Builder<T> withWorkers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder<T> withOnBatch(Consumer<List<Event<T>>> onBatch) {
+            this.onBatch = onBatch;
+            return this;
+        }
+
+        public Builder<T> withMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder<T> withBatchLingerMs(long batchLingerMs) {
+            this.batchLingerMs = batchLingerMs;
+            return this;
+        }
+
+        /**
+         * @param watchedNamespaces  when watching all the namespaces, only these are passed through, null for all
+         */
+        public Builder<T> withWatchedNamespaces(Set<String> watchedNamespaces) {
+            this.watchedNamespaces = watchedNamespaces;
+            return this;
+        }
+
         public ConfigMapWatcher build() {
             if (!registered) {
                 io.fabric8.kubernetes.internal.KubernetesDeserializer.registerCustomKind("v1#ConfigMap", ConfigMap.class);
                 registered = true;
             }
-            return new ConfigMapWatcher(namespace, entityName, client, selector, onAdd, onDelete, onModify, predicate, convert);
+            return new ConfigMapWatcher(namespace, entityName, client, selector, onAdd, onDelete, onModify, predicate, convert, workers,
+                    onBatch, maxBatchSize, batchLingerMs, watchedNamespaces);
         }
     }
 
@@ -101,6 +144,7 @@ public class ConfigMapWatcher<T extends EntityInfo> extends AbstractWatcher<T> {
 
     @Override
     public CompletableFuture<ConfigMapWatcher<T>> watch() {
+        startProcessing();
         return createConfigMapWatch().thenApply(watch -> this);
     }
 }
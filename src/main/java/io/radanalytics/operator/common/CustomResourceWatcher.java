@@ -1,18 +1,33 @@
 package io.radanalytics.operator.common;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.MapMaker;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watcher;
 import io.radanalytics.operator.common.crd.InfoClass;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static io.radanalytics.operator.common.OperatorConfig.ALL_NAMESPACES;
 
 public class CustomResourceWatcher<T extends EntityInfo> extends AbstractWatcher<T> {
 
+    private final boolean skipUnchangedGeneration;
+    // last processed metadata.generation for each namespace/name, i.e. the one the handlers have succeeded with
+    private final Map<String, Long> processedGenerations = new ConcurrentHashMap<>();
+    // last enqueued metadata.generation for each namespace/name
+    private final Map<String, Long> queuedGenerations = new ConcurrentHashMap<>();
+    // generation of each entity on its way to the handlers (weak keys are compared by identity)
+    private final Map<T, Long> entityGenerations = new MapMaker().weakKeys().makeMap();
+
     // use via builder
     private CustomResourceWatcher(String namespace,
                                   String entityName,
@@ -21,8 +36,16 @@ public class CustomResourceWatcher<T extends EntityInfo> extends AbstractWatcher
                                   BiConsumer<T, String> onAdd,
                                   BiConsumer<T, String> onDelete,
                                   BiConsumer<T, String> onModify,
-                                  Function<InfoClass, T> convert) {
-        super(true, namespace, entityName, client, crd, null, onAdd, onDelete, onModify, null, null, convert);
+                                  Function<InfoClass, T> convert,
+                                  int workers,
+                                  Consumer<List<Event<T>>> onBatch,
+                                  int maxBatchSize,
+                                  long batchLingerMs,
+                                  boolean skipUnchangedGeneration,
+                                  Set<String> watchedNamespaces) {
+        super(true, namespace, entityName, client, crd, null, onAdd, onDelete, onModify, null, null, convert, workers,
+                onBatch, maxBatchSize, batchLingerMs, watchedNamespaces);
+        this.skipUnchangedGeneration = skipUnchangedGeneration;
     }
 
     public static class Builder<T> {
@@ -35,6 +58,12 @@ public class CustomResourceWatcher<T extends EntityInfo> extends AbstractWatcher
         private BiConsumer<T, String> onDelete;
         private BiConsumer<T, String> onModify;
         private Function<InfoClass, T> convert;
+        private int workers = 1;
+        private Consumer<List<Event<T>>> onBatch;
+        private int maxBatchSize = 1;
+        private long batchLingerMs = 0;
+        private boolean skipUnchangedGeneration = true;
+        private Set<String> watchedNamespaces;
 
         public Builder<T> withNamespace(String namespace) {
             this.namespace = namespace;
@@ -76,16 +105,49 @@ public class CustomResourceWatcher<T extends EntityInfo> extends AbstractWatcher
             return this;
         }
 
+        public Builder<T> withWorkers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder<T> withOnBatch(Consumer<List<Event<T>>> onBatch) {
+            this.onBatch = onBatch;
+            return this;
+        }
+
+        public Builder<T> withMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder<T> withBatchLingerMs(long batchLingerMs) {
+            this.batchLingerMs = batchLingerMs;
+            return this;
+        }
+
+        /**
+         * @param watchedNamespaces  when watching all the namespaces, only these are passed through, null for all
+         */
+        public Builder<T> withWatchedNamespaces(Set<String> watchedNamespaces) {
+            this.watchedNamespaces = watchedNamespaces;
+            return this;
+        }
+
+        public Builder<T> withSkipUnchangedGeneration(boolean skipUnchangedGeneration) {
+            this.skipUnchangedGeneration = skipUnchangedGeneration;
+            return this;
+        }
+
         public CustomResourceWatcher build() {
-            return new CustomResourceWatcher(namespace, entityName, client, crd, onAdd, onDelete, onModify, convert);
+            return new CustomResourceWatcher(namespace, entityName, client, crd, onAdd, onDelete, onModify, convert,
+                    workers, onBatch, maxBatchSize, batchLingerMs, skipUnchangedGeneration, watchedNamespaces);
         }
     }
 
     public static <T extends EntityInfo> T defaultConvert(Class<T> clazz, InfoClass info) {
         String name = info.getMetadata().getName();
         String namespace = info.getMetadata().getNamespace();
-        ObjectMapper mapper = new ObjectMapper();
-        T infoSpec = mapper.convertValue(info.getSpec(), clazz);
+        T infoSpec = EntityConverters.convert(clazz, info.getSpec());
         if (infoSpec == null) { // empty spec
             try {
                 infoSpec = clazz.newInstance();
@@ -104,8 +166,59 @@ public class CustomResourceWatcher<T extends EntityInfo> extends AbstractWatcher
         return infoSpec;
     }
 
+    /**
+     * The CRDs created by this library have the status subresource enabled, so the API server increments the
+     * <code>metadata.generation</code> only when the spec changes. MODIFIED events with the last processed generation
+     * (or with the generation of the event that is already on its way to the handlers) are caused by status (or
+     * metadata) updates, for instance by <code>AbstractOperator.setCRStatus</code>, and they are not passed to the
+     * handlers unless this has been switched off. The generation counts as processed only once the handler has
+     * succeeded, so if the handling fails or the event is dropped, the next MODIFIED event goes through.
+     */
+    @Override
+    protected boolean isRelevant(Watcher.Action action, ObjectMeta metadata, T entity) {
+        String key = Event.keyOf(metadata.getNamespace(), metadata.getName());
+        if (action == Watcher.Action.DELETED) {
+            processedGenerations.remove(key);
+            queuedGenerations.remove(key);
+            return true;
+        }
+        Long generation = metadata.getGeneration();
+        if (generation == null) {
+            return true;
+        }
+        if (action == Watcher.Action.ADDED && !isCacheSynced()) {
+            // the initial list is handled by the first full reconciliation, the generation counts as processed only
+            // once a handler has succeeded for the cached entity
+            if (entity != null) {
+                entityGenerations.put(entity, generation);
+            }
+            return true;
+        }
+        if (skipUnchangedGeneration && action == Watcher.Action.MODIFIED
+                && (generation.equals(processedGenerations.get(key))
+                || (generation.equals(queuedGenerations.get(key)) && isQueued(key)))) {
+            log.debug("Generation {} of {} {} has already been processed, skipping", generation, metadata.getName(),
+                    metadata.getNamespace());
+            return false;
+        }
+        queuedGenerations.put(key, generation);
+        if (entity != null) {
+            entityGenerations.put(entity, generation);
+        }
+        return true;
+    }
+
+    @Override
+    protected void onHandled(Event<T> event) {
+        Long generation = entityGenerations.remove(event.getEntity());
+        if (generation != null && event.getAction() != Watcher.Action.DELETED) {
+            processedGenerations.merge(event.getKey(), generation, Math::max);
+        }
+    }
+
     @Override
     public CompletableFuture<CustomResourceWatcher<T>> watch() {
+        startProcessing();
         return createCustomResourceWatch().thenApply(watch -> this);
     }
 }
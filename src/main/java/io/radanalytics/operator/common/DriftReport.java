@@ -0,0 +1,66 @@
+package io.radanalytics.operator.common;
+
+/**
+ * Result of one differential full reconciliation: how many entities have been found new, changed or missing
+ * compared to what has been successfully handled before. Each of them has been enqueued for the handlers.
+ */
+public class DriftReport {
+
+    public static final DriftReport NONE = new DriftReport(0, 0, 0);
+
+    private final int added;
+    private final int changed;
+    private final int missing;
+
+    public DriftReport(int added, int changed, int missing) {
+        this.added = added;
+        this.changed = changed;
+        this.missing = missing;
+    }
+
+    /**
+     * @return number of entities that have never been handled successfully
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    /**
+     * @return number of entities whose content differs from the last successfully handled one
+     */
+    public int getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return number of entities that have been handled, but don't exist anymore
+     */
+    public int getMissing() {
+        return missing;
+    }
+
+    public int getTotal() {
+        return added + changed + missing;
+    }
+
+    /**
+     * @param other  report of another part of the desired state, e.g. of another namespace
+     * @return the sum of both reports
+     */
+    public DriftReport plus(DriftReport other) {
+        return new DriftReport(added + other.added, changed + other.changed, missing + other.missing);
+    }
+
+    public boolean hasDrift() {
+        return getTotal() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DriftReport{" +
+                "added=" + added +
+                ", changed=" + changed +
+                ", missing=" + missing +
+                '}';
+    }
+}
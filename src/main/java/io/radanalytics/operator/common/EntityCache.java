@@ -0,0 +1,124 @@
+package io.radanalytics.operator.common;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory store of the already converted entities, keyed by <code>namespace/name</code>. It's filled by the
+ * initial list when the watch is being created and then kept up to date by the watch itself, so that the desired
+ * state can be read without talking to the API server.
+ *
+ * Note that the cached entities are shared, they shouldn't be modified by the callers.
+ *
+ * @param <T> entity info class that captures the configuration of the objects we are watching
+ */
+public class EntityCache<T extends EntityInfo> {
+
+    private final ConcurrentMap<String, Entry<T>> store = new ConcurrentHashMap<>();
+    private volatile boolean synced = false;
+
+    public void put(String namespace, String name, T entity, String resourceVersion) {
+        store.put(Event.keyOf(namespace, name), new Entry<>(entity, namespace, name, resourceVersion));
+    }
+
+    public void remove(String namespace, String name) {
+        store.remove(Event.keyOf(namespace, name));
+    }
+
+    public Optional<T> get(String namespace, String name) {
+        return Optional.ofNullable(store.get(Event.keyOf(namespace, name))).map(Entry::getEntity);
+    }
+
+    public Optional<Entry<T>> getEntry(String key) {
+        return Optional.ofNullable(store.get(key));
+    }
+
+    public Set<T> values() {
+        return store.values().stream().map(Entry::getEntity).collect(Collectors.toSet());
+    }
+
+    public Set<T> values(String namespace) {
+        return store.values().stream()
+                .map(Entry::getEntity)
+                .filter(e -> namespace.equals(e.getNamespace()))
+                .collect(Collectors.toSet());
+    }
+
+    public Stream<T> stream() {
+        return store.values().stream().map(Entry::getEntity);
+    }
+
+    public Set<String> keys() {
+        return store.keySet();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Replaces the whole content of the cache by the result of a list call and marks the cache as synced.
+     *
+     * @param entries  entries keyed by <code>namespace/name</code>
+     */
+    void replace(Map<String, Entry<T>> entries) {
+        store.keySet().retainAll(entries.keySet());
+        store.putAll(entries);
+        synced = true;
+    }
+
+    /**
+     * @return true if the cache has been filled by the initial list
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public static class Entry<T extends EntityInfo> {
+        private final T entity;
+        private final String namespace;
+        private final String name;
+        private final String resourceVersion;
+        private volatile String contentHash;
+
+        public Entry(T entity, String namespace, String name, String resourceVersion) {
+            this.entity = entity;
+            this.namespace = namespace;
+            this.name = name;
+            this.resourceVersion = resourceVersion;
+        }
+
+        public T getEntity() {
+            return entity;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getResourceVersion() {
+            return resourceVersion;
+        }
+
+        /**
+         * @return hash of the entity content, computed on the first call
+         */
+        public String getContentHash() {
+            String hash = contentHash;
+            if (hash == null) {
+                hash = EntityConverters.contentHash(entity);
+                contentHash = hash;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.radanalytics.operator.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the converters from the untyped spec of a custom resource (maps, lists and scalars as deserialized by
+ * the kubernetes client) to the entity info classes. There is one shared <code>ObjectMapper</code> and one
+ * <code>ObjectReader</code> per class, both are thread-safe and their deserializers are resolved only once, so the
+ * conversion doesn't pay for building the Jackson caches on each event.
+ *
+ * The spec is streamed into a <code>TokenBuffer</code> and read back directly by the reader, there is no intermediate
+ * <code>JsonNode</code> tree.
+ *
+ * Classes generated from the JSON schema with the <code>RegisterForReflectionAnnotator</code> (abstract-operator-annotator)
+ * also have a static <code>fromMap(Map&lt;String, Object&gt;)</code> method that builds the object without reflection.
+ * It's used whenever the input is a map, Jackson handles the cases that the generated method rejects.
+ */
+public final class EntityConverters {
+
+    private static final String GENERATED_METHOD = "fromMap";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter HASH_WRITER = MAPPER.writer()
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, Optional<MethodHandle>> GENERATED = new ConcurrentHashMap<>();
+
+    private EntityConverters() {
+    }
+
+    public static ObjectReader readerFor(Class<?> clazz) {
+        return READERS.computeIfAbsent(clazz, MAPPER::readerFor);
+    }
+
+    /**
+     * Computes the hash of the content of the object, i.e. of its JSON representation with the map entries ordered by
+     * keys, so two objects with the same content have the same hash regardless of their identity.
+     *
+     * @param object  object to hash
+     * @return hex string of the hash, or of the identity hash code if the object can't be serialized
+     */
+    public static String contentHash(Object object) {
+        try {
+            return Hashing.murmur3_128().hashBytes(HASH_WRITER.writeValueAsBytes(object)).toString();
+        } catch (JsonProcessingException e) {
+            return Integer.toHexString(System.identityHashCode(object));
+        }
+    }
+
+    /**
+     * @param clazz  class to check
+     * @return true if the class has the generated <code>fromMap</code> method
+     */
+    public static boolean hasGeneratedReader(Class<?> clazz) {
+        return generatedReader(clazz).isPresent();
+    }
+
+    /**
+     * Converts the map by the generated <code>fromMap</code> method of the class.
+     *
+     * @param clazz  target class
+     * @param map    untyped structure, for instance the spec of a custom resource or a parsed YAML document
+     * @param <T>    entity info class
+     * @return the converted object or null if there is no generated method or it has rejected the input
+     */
+    public static <T> T readGenerated(Class<T> clazz, Map<?, ?> map) {
+        Optional<MethodHandle> fromMap = generatedReader(clazz);
+        if (!fromMap.isPresent()) {
+            return null;
+        }
+        try {
+            return clazz.cast(fromMap.get().invoke(map));
+        } catch (RuntimeException e) {
+            // unknown field, unexpected type, etc.
+            return null;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static Optional<MethodHandle> generatedReader(Class<?> clazz) {
+        return GENERATED.computeIfAbsent(clazz, c -> {
+            try {
+                return Optional.of(MethodHandles.publicLookup().findStatic(c, GENERATED_METHOD,
+                        MethodType.methodType(c, Map.class)));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Converts the spec to the given class, the semantics is the same as of <code>ObjectMapper.convertValue</code>.
+     *
+     * @param clazz  target class
+     * @param spec   untyped spec of the custom resource
+     * @param <T>    entity info class
+     * @return the converted spec or null if the spec is null
+     * @throws IllegalArgumentException if the spec doesn't match the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T convert(Class<T> clazz, Object spec) {
+        if (spec == null) {
+            return null;
+        }
+        if (clazz.isInstance(spec)) {
+            return (T) spec;
+        }
+        if (spec instanceof Map) {
+            T generated = readGenerated(clazz, (Map<?, ?>) spec);
+            if (generated != null) {
+                return generated;
+            }
+        }
+        try (TokenBuffer buffer = new TokenBuffer(MAPPER, false)) {
+            MAPPER.writeValue(buffer, spec);
+            return readerFor(clazz).readValue(buffer.asParser());
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+}
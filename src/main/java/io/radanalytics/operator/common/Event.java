@@ -0,0 +1,106 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.client.Watcher;
+
+/**
+ * Represents one pending change of a config map or custom resource on its way from the watch to the handlers.
+ * Events are identified by the key <code>namespace/name</code> so that several changes of the same object can be
+ * collapsed into one.
+ *
+ * @param <T> entity info class that captures the configuration of the objects we are watching
+ */
+public class Event<T extends EntityInfo> {
+
+    private final Watcher.Action action;
+    private final T entity;
+    private final String namespace;
+    private final String name;
+    private final long enqueuedAt;
+    // the handler has already been called for this event (it's being retried), so it may have done part of its work
+    private final boolean attempted;
+
+    public Event(Watcher.Action action, T entity, String namespace, String name) {
+        this(action, entity, namespace, name, System.nanoTime(), false);
+    }
+
+    private Event(Watcher.Action action, T entity, String namespace, String name, long enqueuedAt,
+                  boolean attempted) {
+        this.action = action;
+        this.entity = entity;
+        this.namespace = namespace;
+        this.name = name;
+        this.enqueuedAt = enqueuedAt;
+        this.attempted = attempted;
+    }
+
+    public static String keyOf(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    /**
+     * Merges this pending event with a newer one for the same key. The newer entity always wins, the action is
+     * derived from both of them and the time of enqueueing is kept from the older one.
+     *
+     * An added object that has been deleted before its handler has run cancels out. If the handler has already been
+     * called (the event is waiting for a retry), it may have created something, so the result is a deletion.
+     *
+     * @param newer  event that has arrived after this one
+     * @return merged event or null if the two events cancel out (object was added and deleted before processing)
+     */
+    Event<T> merge(Event<T> newer) {
+        Watcher.Action merged;
+        if (newer.action == Watcher.Action.DELETED) {
+            if (action == Watcher.Action.ADDED && !attempted) {
+                return null;
+            }
+            merged = Watcher.Action.DELETED;
+        } else {
+            merged = action == Watcher.Action.ADDED ? Watcher.Action.ADDED : Watcher.Action.MODIFIED;
+        }
+        return new Event<>(merged, newer.entity, newer.namespace, newer.name, enqueuedAt, attempted);
+    }
+
+    /**
+     * @return the same event as if it has just been enqueued, marked as already handed to the handler
+     */
+    Event<T> requeued() {
+        return new Event<>(action, entity, namespace, name, System.nanoTime(), true);
+    }
+
+    public Watcher.Action getAction() {
+        return action;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return keyOf(namespace, name);
+    }
+
+    public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    boolean isAttempted() {
+        return attempted;
+    }
+
+    @Override
+    public String toString() {
+        return "Event{" +
+                "action=" + action +
+                ", namespace=" + namespace +
+                ", name=" + name +
+                '}';
+    }
+}
@@ -5,13 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fabric8.kubernetes.api.model.apiextensions.JSONSchemaProps;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.net.URL;
 
 public class JSONSchemaReader {
 
+    private static final String GENERATED_METHOD = "crdSchema";
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     public static JSONSchemaProps readSchema(Class infoClass) {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         char[] chars = infoClass.getSimpleName().toCharArray();
         chars[0] = Character.toLowerCase(chars[0]);
         String urlJson = "/schema/" + new String(chars) + ".json";
@@ -25,10 +29,56 @@ public class JSONSchemaReader {
             return null;
         }
         try {
-            return mapper.readValue(in, JSONSchemaProps.class);
+            return MAPPER.readValue(in, JSONSchemaProps.class);
         } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * Reads the schema for the validation of the custom resource definition, i.e. without the default values. Classes
+     * generated with the <code>RegisterForReflectionAnnotator</code> (abstract-operator-annotator) carry it in their
+     * static <code>crdSchema()</code> method, for the other ones the schema file is read and the defaults are removed.
+     *
+     * @param infoClass  entity info class
+     * @return the schema or null if there is none
+     */
+    public static JSONSchemaProps readCrdSchema(Class infoClass) {
+        String generated = generatedSchema(infoClass);
+        if (generated != null) {
+            try {
+                return MAPPER.readValue(generated, JSONSchemaProps.class);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        JSONSchemaProps schema = readSchema(infoClass);
+        removeDefaultValues(schema);
+        return schema;
+    }
+
+    private static String generatedSchema(Class<?> infoClass) {
+        try {
+            return (String) MethodHandles.publicLookup()
+                    .findStatic(infoClass, GENERATED_METHOD, MethodType.methodType(String.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static void removeDefaultValues(JSONSchemaProps schema) {
+        if (null == schema) {
+            return;
+        }
+        schema.setDefault(null);
+        if (null != schema.getProperties()) {
+            for (JSONSchemaProps prop : schema.getProperties().values()) {
+                removeDefaultValues(prop);
+            }
+        }
+    }
 }
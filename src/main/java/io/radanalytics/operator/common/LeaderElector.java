@@ -0,0 +1,276 @@
+package io.radanalytics.operator.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.radanalytics.operator.SDKEntrypoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader election based on a <code>coordination.k8s.io/v1</code> Lease object. All the replicas try to acquire or
+ * renew the lease every third of the lease duration. The holder renews it, the others take it over once it hasn't
+ * been renewed for the whole lease duration. The expiration is measured by the local clock since the last change of
+ * the lease has been observed (the same way as client-go does it), so the clocks of the replicas don't need to be in
+ * sync. The updates carry the resourceVersion, so only one of the competing replicas succeeds.
+ *
+ * The leader that fails to renew the lease for two thirds of the lease duration (the renew deadline) steps down, so
+ * its workers are stopped before any other replica can consider the lease expired. The renewals run on their own
+ * thread and the deadline is checked on the shared scheduler, so a request that hangs doesn't delay the step down.
+ * When stopped, the leader releases the lease so that a standby replica can take over right away.
+ *
+ * The lease is accessed by the raw custom resource API of the kubernetes client, so it works with any version of
+ * the client that has no typed support for the Lease objects, as well as with its mock server.
+ */
+public class LeaderElector {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderElector.class.getName());
+
+    static final CustomResourceDefinitionContext LEASES = new CustomResourceDefinitionContext.Builder()
+            .withName("leases.coordination.k8s.io")
+            .withGroup("coordination.k8s.io")
+            .withVersion("v1")
+            .withScope("Namespaced")
+            .withPlural("leases")
+            .build();
+    private static final DateTimeFormatter MICRO_TIME = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX")
+            .withZone(ZoneOffset.UTC);
+
+    private final KubernetesClient client;
+    private final String namespace;
+    private final String leaseName;
+    private final String identity;
+    private final long leaseDurationMs;
+    private final long renewDeadlineMs;
+    private final Runnable onStartLeading;
+    private final Runnable onStopLeading;
+
+    private final Gauge.Child isLeader;
+    private final Counter.Child acquired;
+    private final Counter.Child lost;
+    private final Histogram.Child renewLatency;
+
+    private final Object transitionLock = new Object();
+    private volatile boolean leader = false;
+    private volatile long lastRenewAt;
+    private String observedRecord;
+    private long observedAt;
+    private ScheduledExecutorService renewer;
+    private ScheduledFuture<?> deadlineCheck;
+
+    /**
+     * @param client          kubernetes client
+     * @param namespace       namespace of the lease
+     * @param leaseName       name of the lease, all the replicas of the operator must use the same one
+     * @param identity        unique identity of this replica, typically the pod name
+     * @param leaseDurationS  how long the lease is valid after it has been renewed
+     * @param onStartLeading  called when this replica becomes the leader
+     * @param onStopLeading   called when this replica stops being the leader
+     */
+    public LeaderElector(KubernetesClient client, String namespace, String leaseName, String identity,
+                         long leaseDurationS, Runnable onStartLeading, Runnable onStopLeading) {
+        this.client = client;
+        this.namespace = namespace;
+        this.leaseName = leaseName;
+        this.identity = identity;
+        this.leaseDurationMs = TimeUnit.SECONDS.toMillis(leaseDurationS);
+        this.renewDeadlineMs = leaseDurationMs * 2 / 3;
+        this.onStartLeading = onStartLeading;
+        this.onStopLeading = onStopLeading;
+        this.isLeader = OperatorMetrics.LEADER.labels(leaseName);
+        this.acquired = OperatorMetrics.LEADER_TRANSITIONS.labels(leaseName, "acquired");
+        this.lost = OperatorMetrics.LEADER_TRANSITIONS.labels(leaseName, "lost");
+        this.renewLatency = OperatorMetrics.LEASE_RENEW.labels(leaseName);
+    }
+
+    public synchronized void start() {
+        log.info("Starting leader election for lease {} in namespace {} as {}", leaseName, namespace, identity);
+        // several attempts to renew the lease fit into the renew deadline
+        long retryPeriodMs = Math.max(500, renewDeadlineMs / 4);
+        long checkPeriodMs = Math.max(100, (leaseDurationMs - renewDeadlineMs) / 4);
+        renewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("leader-elector-" + leaseName)
+                .setDaemon(true)
+                .build());
+        renewer.scheduleWithFixedDelay(this::tick, 0, retryPeriodMs, TimeUnit.MILLISECONDS);
+        deadlineCheck = SDKEntrypoint.getScheduler().scheduleWithFixedDelay(this::checkRenewDeadline, checkPeriodMs,
+                checkPeriodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (deadlineCheck != null) {
+            deadlineCheck.cancel(false);
+        }
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        synchronized (this) {
+            if (leader) {
+                release();
+                setLeader(false);
+            }
+        }
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    synchronized void tick() {
+        long start = System.nanoTime();
+        boolean holding;
+        try {
+            holding = tryAcquireOrRenew();
+            renewLatency.observe(OperatorMetrics.secondsSince(start));
+        } catch (Exception e) {
+            log.warn("Unable to acquire or renew lease {}: {}", leaseName, e.getMessage());
+            // a leader keeps leading until it has been unable to renew the lease for the renew deadline
+            holding = leader && withinRenewDeadline();
+        }
+        setLeader(holding);
+    }
+
+    /**
+     * Steps down once the lease hasn't been renewed within the renew deadline, even if the renewal is still running.
+     */
+    void checkRenewDeadline() {
+        if (leader && !withinRenewDeadline()) {
+            log.warn("Lease {} hasn't been renewed for {} ms, stepping down", leaseName, renewDeadlineMs);
+            setLeader(false);
+        }
+    }
+
+    private boolean withinRenewDeadline() {
+        return System.nanoTime() - lastRenewAt < TimeUnit.MILLISECONDS.toNanos(renewDeadlineMs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean tryAcquireOrRenew() throws IOException {
+        String now = MICRO_TIME.format(Instant.now());
+        Map<String, Object> lease = getLease();
+        if (lease == null) {
+            Map<String, Object> spec = new HashMap<>();
+            spec.put("holderIdentity", identity);
+            spec.put("leaseDurationSeconds", TimeUnit.MILLISECONDS.toSeconds(leaseDurationMs));
+            spec.put("acquireTime", now);
+            spec.put("renewTime", now);
+            spec.put("leaseTransitions", 0);
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("name", leaseName);
+            metadata.put("namespace", namespace);
+            lease = new HashMap<>();
+            lease.put("apiVersion", LEASES.getGroup() + "/" + LEASES.getVersion());
+            lease.put("kind", "Lease");
+            lease.put("metadata", metadata);
+            lease.put("spec", spec);
+            client.customResource(LEASES).create(namespace, lease);
+            observe(identity, now);
+            return true;
+        }
+
+        Map<String, Object> spec = (Map<String, Object>) lease.computeIfAbsent("spec", k -> new HashMap<>());
+        String holder = (String) spec.get("holderIdentity");
+        observe(holder, spec.get("renewTime"));
+        boolean expired = holder == null || holder.isEmpty()
+                || System.nanoTime() - observedAt > TimeUnit.MILLISECONDS.toNanos(leaseDurationMs);
+        if (!identity.equals(holder)) {
+            if (!expired) {
+                return false;
+            }
+            Object transitions = spec.get("leaseTransitions");
+            spec.put("holderIdentity", identity);
+            spec.put("acquireTime", now);
+            spec.put("leaseTransitions", transitions instanceof Number ? ((Number) transitions).intValue() + 1 : 1);
+        }
+        spec.put("leaseDurationSeconds", TimeUnit.MILLISECONDS.toSeconds(leaseDurationMs));
+        spec.put("renewTime", now);
+        // fails with 409 if anybody else has updated the lease since it has been read
+        client.customResource(LEASES).edit(namespace, leaseName, lease);
+        observe(identity, now);
+        return true;
+    }
+
+    private Map<String, Object> getLease() {
+        try {
+            return client.customResource(LEASES).get(namespace, leaseName);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private void observe(String holder, Object renewTime) {
+        String record = holder + "@" + renewTime;
+        if (!record.equals(observedRecord)) {
+            observedRecord = record;
+            observedAt = System.nanoTime();
+        }
+        if (identity.equals(holder)) {
+            lastRenewAt = observedAt;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void release() {
+        try {
+            Map<String, Object> lease = getLease();
+            if (lease == null) {
+                return;
+            }
+            Map<String, Object> spec = (Map<String, Object>) lease.get("spec");
+            if (spec != null && identity.equals(spec.get("holderIdentity"))) {
+                spec.put("holderIdentity", "");
+                spec.put("renewTime", MICRO_TIME.format(Instant.now()));
+                client.customResource(LEASES).edit(namespace, leaseName, lease);
+                log.info("Lease {} has been released", leaseName);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to release lease {}: {}", leaseName, e.getMessage());
+        }
+    }
+
+    private void setLeader(boolean value) {
+        // not under the lock of the renewals, the deadline check must not wait for a renewal that hangs
+        synchronized (transitionLock) {
+            if (leader == value) {
+                return;
+            }
+            leader = value;
+            isLeader.set(value ? 1 : 0);
+            if (value) {
+                acquired.inc();
+                log.info("{}{} is the leader{} (lease {} in namespace {})", AnsiColors.gr(), identity,
+                        AnsiColors.xx(), leaseName, namespace);
+                onStartLeading.run();
+            } else {
+                lost.inc();
+                log.info("{}{} is not the leader anymore{} (lease {} in namespace {})", AnsiColors.re(), identity,
+                        AnsiColors.xx(), leaseName, namespace);
+                onStopLeading.run();
+            }
+        }
+    }
+}
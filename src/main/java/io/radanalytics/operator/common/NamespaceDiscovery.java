@@ -0,0 +1,110 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the namespaces having the given labels. The callbacks are called when a namespace starts or stops
+ * matching the selector (it has been created, deleted or relabeled), so the operators can start or stop watching it
+ * without being restarted.
+ */
+public class NamespaceDiscovery {
+
+    private static final Logger log = LoggerFactory.getLogger(NamespaceDiscovery.class.getName());
+
+    private final KubernetesClient client;
+    private final Map<String, String> selector;
+    private final Consumer<String> onAdded;
+    private final Consumer<String> onRemoved;
+
+    // accessed only from the informer callbacks, which are never called concurrently
+    private final Set<String> namespaces = new HashSet<>();
+    private final SharedInformer.Listener<Namespace> listener = new SharedInformer.Listener<Namespace>() {
+        @Override
+        public SharedInformer.ListSink<Namespace> onList() {
+            Set<String> listed = new HashSet<>();
+            return new SharedInformer.ListSink<Namespace>() {
+                @Override
+                public void accept(Namespace namespace) {
+                    listed.add(namespace.getMetadata().getName());
+                }
+
+                @Override
+                public void finish() {
+                    new HashSet<>(namespaces).stream().filter(ns -> !listed.contains(ns)).forEach(ns -> remove(ns));
+                    listed.forEach(ns -> add(ns));
+                }
+            };
+        }
+
+        @Override
+        public void onEvent(Watcher.Action action, Namespace namespace) {
+            String name = namespace.getMetadata().getName();
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    add(name);
+                    break;
+                case DELETED:
+                    remove(name);
+                    break;
+                default:
+                    // error has been logged by the informer
+            }
+        }
+    };
+
+    private volatile SharedInformer<Namespace> informer;
+
+    /**
+     * @param client     kubernetes client
+     * @param selector   labels of the namespaces
+     * @param onAdded    called with the name of the namespace that has started matching the selector
+     * @param onRemoved  called with the name of the namespace that has stopped matching the selector
+     */
+    public NamespaceDiscovery(KubernetesClient client, Map<String, String> selector, Consumer<String> onAdded,
+                              Consumer<String> onRemoved) {
+        this.client = client;
+        this.selector = selector;
+        this.onAdded = onAdded;
+        this.onRemoved = onRemoved;
+    }
+
+    /**
+     * @return future that completes once the callbacks have been called for the namespaces that exist now
+     */
+    public CompletableFuture<Void> start() {
+        log.info("Watching the namespaces with labels {}", selector);
+        return SharedInformer.subscribeNamespaces(client, selector, listener).thenAccept(i -> informer = i);
+    }
+
+    public void stop() {
+        SharedInformer<Namespace> i = informer;
+        if (i != null) {
+            i.unsubscribe(listener);
+        }
+    }
+
+    private void add(String namespace) {
+        if (namespaces.add(namespace)) {
+            log.info("Namespace {} matches labels {}, starting to watch it", namespace, selector);
+            onAdded.accept(namespace);
+        }
+    }
+
+    private void remove(String namespace) {
+        if (namespaces.remove(namespace)) {
+            log.info("Namespace {} doesn't match labels {} anymore, stopping to watch it", namespace, selector);
+            onRemoved.accept(namespace);
+        }
+    }
+}
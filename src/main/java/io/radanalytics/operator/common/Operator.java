@@ -18,4 +18,18 @@ public @interface Operator {
     String[] additionalPrinterColumnNames() default {};
     String[] additionalPrinterColumnPaths() default {};
     String[] additionalPrinterColumnTypes() default {};
+    // number of threads handling the events, 0 means the WORKER_THREADS env variable (or its default) is used
+    int workers() default 0;
+    // if true, MODIFIED events of custom resources that don't change metadata.generation (status updates) are ignored
+    boolean skipUnchangedGeneration() default true;
+    // if greater than 1, the events are delivered to onBatch in batches of at most this size
+    int maxBatchSize() default 1;
+    // how long to wait for more events to fill the batch
+    long batchLingerMs() default 100;
+    // if false, the events are handled right away, otherwise they are buffered until the first full reconciliation
+    boolean awaitFullReconciliation() default true;
+    // if true, the default fullReconciliation() passes only the new, changed and missing entities to the handlers
+    boolean differentialReconciliation() default false;
+    // if true, the config maps are converted only once per resourceVersion and the entities must not be modified
+    boolean memoizeConversion() default false;
 }
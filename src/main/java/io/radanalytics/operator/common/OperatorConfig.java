@@ -5,6 +5,7 @@
 package io.radanalytics.operator.common;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -18,6 +19,7 @@ import static java.util.Arrays.asList;
 public class OperatorConfig {
 
     public static final String WATCH_NAMESPACE = "WATCH_NAMESPACE";
+    public static final String WATCH_NAMESPACE_SELECTOR = "WATCH_NAMESPACE_SELECTOR";
     public static final String SAME_NAMESPACE = "~";
     public static final String ALL_NAMESPACES = "*";
     public static final String METRICS = "METRICS";
@@ -25,12 +27,58 @@ public class OperatorConfig {
     public static final String METRICS_PORT = "METRICS_PORT";
     public static final String FULL_RECONCILIATION_INTERVAL_S = "FULL_RECONCILIATION_INTERVAL_S";
     public static final String OPERATOR_OPERATION_TIMEOUT_MS = "OPERATOR_OPERATION_TIMEOUT_MS";
+    public static final String WORKER_THREADS = "WORKER_THREADS";
+    public static final String FULL_RECONCILIATION_CONCURRENCY = "FULL_RECONCILIATION_CONCURRENCY";
+    public static final String FULL_RECONCILIATION_ADAPTIVE = "FULL_RECONCILIATION_ADAPTIVE";
+    public static final String FULL_RECONCILIATION_MIN_INTERVAL_S = "FULL_RECONCILIATION_MIN_INTERVAL_S";
+    public static final String FULL_RECONCILIATION_MAX_INTERVAL_S = "FULL_RECONCILIATION_MAX_INTERVAL_S";
+    public static final String LEADER_ELECTION = "LEADER_ELECTION";
+    public static final String LEADER_ELECTION_LEASE_NAME = "LEADER_ELECTION_LEASE_NAME";
+    public static final String LEADER_ELECTION_NAMESPACE = "LEADER_ELECTION_NAMESPACE";
+    public static final String LEADER_ELECTION_LEASE_DURATION_S = "LEADER_ELECTION_LEASE_DURATION_S";
+    public static final String SHARDING = "SHARDING";
+    public static final String SHARDING_GROUP = "SHARDING_GROUP";
+    public static final String SHARDING_KEY = "SHARDING_KEY";
+    public static final String WATCH_MODE = "WATCH_MODE";
+    public static final String WATCH_MODE_THRESHOLD = "WATCH_MODE_THRESHOLD";
 
     public static final boolean DEFAULT_METRICS = true;
     public static final boolean DEFAULT_METRICS_JVM = false;
     public static final int DEFAULT_METRICS_PORT = 8080;
     public static final long DEFAULT_FULL_RECONCILIATION_INTERVAL_S = 180;
     public static final long DEFAULT_OPERATION_TIMEOUT_MS = 60_000;
+    public static final int DEFAULT_WORKER_THREADS = 1;
+    public static final int DEFAULT_FULL_RECONCILIATION_CONCURRENCY = 2;
+    public static final boolean DEFAULT_FULL_RECONCILIATION_ADAPTIVE = false;
+    public static final long DEFAULT_FULL_RECONCILIATION_MIN_INTERVAL_S = 30;
+    public static final long DEFAULT_FULL_RECONCILIATION_MAX_INTERVAL_S = 1800;
+    public static final boolean DEFAULT_LEADER_ELECTION = false;
+    public static final String DEFAULT_LEADER_ELECTION_LEASE_NAME = "abstract-operator-leader";
+    public static final long DEFAULT_LEADER_ELECTION_LEASE_DURATION_S = 15;
+    public static final boolean DEFAULT_SHARDING = false;
+    public static final String DEFAULT_SHARDING_GROUP = "abstract-operator";
+    public static final ShardManager.ShardKey DEFAULT_SHARDING_KEY = ShardManager.ShardKey.NAME;
+    public static final WatchMode DEFAULT_WATCH_MODE = WatchMode.AUTO;
+    public static final int DEFAULT_WATCH_MODE_THRESHOLD = 10;
+
+    /**
+     * How the operators watch the resources when <code>WATCH_NAMESPACE</code> lists several namespaces.
+     */
+    public enum WatchMode {
+        /**
+         * one cluster-wide watch if there are at least <code>WATCH_MODE_THRESHOLD</code> namespaces and the
+         * operators are allowed to list the resources in all the namespaces, one watch per namespace otherwise
+         */
+        AUTO,
+        /**
+         * one watch per namespace
+         */
+        NAMESPACED,
+        /**
+         * one cluster-wide watch, the resources from other namespaces are filtered out on the client side
+         */
+        CLUSTER
+    }
 
     private final Set<String> namespaces;
     private final boolean metrics;
@@ -38,9 +86,25 @@ public class OperatorConfig {
     private final int metricsPort;
     private final long reconciliationIntervalS;
     private final long operationTimeoutMs;
+    private final int workerThreads;
+    private final int reconciliationConcurrency;
+    private final boolean reconciliationAdaptive;
+    private final long reconciliationMinIntervalS;
+    private final long reconciliationMaxIntervalS;
+    private final boolean leaderElection;
+    private final String leaseName;
+    private final String leaseNamespace;
+    private final long leaseDurationS;
+    private final boolean sharding;
+    private final String shardingGroup;
+    private final ShardManager.ShardKey shardingKey;
+    private final WatchMode watchMode;
+    private final int watchModeThreshold;
+    private final Map<String, String> namespaceSelector;
 
     /**
-     * Constructor
+     * Constructor, the options that can't be passed here keep their default values, use the {@link Builder} to
+     * set them
      *
      * @param namespaces                  namespace in which the operator will run and create resources
      * @param metrics                     whether the metrics server for prometheus should be started
@@ -51,12 +115,261 @@ public class OperatorConfig {
      */
     public OperatorConfig(Set<String> namespaces, boolean metrics, boolean metricsJvm, int metricsPort,
                           long reconciliationIntervalS, long operationTimeoutMs) {
-        this.namespaces = namespaces;
-        this.reconciliationIntervalS = reconciliationIntervalS;
-        this.operationTimeoutMs = operationTimeoutMs;
-        this.metrics = metrics;
-        this.metricsJvm = metricsJvm;
-        this.metricsPort = metricsPort;
+        this(new Builder()
+                .withNamespaces(namespaces)
+                .withMetrics(metrics)
+                .withMetricsJvm(metricsJvm)
+                .withMetricsPort(metricsPort)
+                .withReconciliationIntervalS(reconciliationIntervalS)
+                .withOperationTimeoutMs(operationTimeoutMs));
+    }
+
+    private OperatorConfig(Builder builder) {
+        this.namespaces = builder.namespaces;
+        this.reconciliationIntervalS = builder.reconciliationIntervalS;
+        this.operationTimeoutMs = builder.operationTimeoutMs;
+        this.metrics = builder.metrics;
+        this.metricsJvm = builder.metricsJvm;
+        this.metricsPort = builder.metricsPort;
+        this.workerThreads = builder.workerThreads;
+        this.reconciliationConcurrency = builder.reconciliationConcurrency;
+        this.reconciliationAdaptive = builder.reconciliationAdaptive;
+        this.reconciliationMinIntervalS = builder.reconciliationMinIntervalS != null
+                ? builder.reconciliationMinIntervalS
+                : Math.min(DEFAULT_FULL_RECONCILIATION_MIN_INTERVAL_S, builder.reconciliationIntervalS);
+        this.reconciliationMaxIntervalS = builder.reconciliationMaxIntervalS != null
+                ? builder.reconciliationMaxIntervalS
+                : Math.max(DEFAULT_FULL_RECONCILIATION_MAX_INTERVAL_S, builder.reconciliationIntervalS);
+        this.leaderElection = builder.leaderElection;
+        this.leaseName = builder.leaseName;
+        this.leaseNamespace = builder.leaseNamespace;
+        this.leaseDurationS = builder.leaseDurationS;
+        this.sharding = builder.sharding;
+        this.shardingGroup = builder.shardingGroup;
+        this.shardingKey = builder.shardingKey;
+        this.watchMode = builder.watchMode;
+        this.watchModeThreshold = builder.watchModeThreshold;
+        this.namespaceSelector = builder.namespaceSelector;
+    }
+
+    /**
+     * Builds the configuration, the options that aren't set keep their default values.
+     */
+    public static class Builder {
+        private Set<String> namespaces = Collections.singleton(ALL_NAMESPACES);
+        private boolean metrics = DEFAULT_METRICS;
+        private boolean metricsJvm = DEFAULT_METRICS_JVM;
+        private int metricsPort = DEFAULT_METRICS_PORT;
+        private long reconciliationIntervalS = DEFAULT_FULL_RECONCILIATION_INTERVAL_S;
+        private long operationTimeoutMs = DEFAULT_OPERATION_TIMEOUT_MS;
+        private int workerThreads = DEFAULT_WORKER_THREADS;
+        private int reconciliationConcurrency = DEFAULT_FULL_RECONCILIATION_CONCURRENCY;
+        private boolean reconciliationAdaptive = DEFAULT_FULL_RECONCILIATION_ADAPTIVE;
+        private Long reconciliationMinIntervalS;
+        private Long reconciliationMaxIntervalS;
+        private boolean leaderElection = DEFAULT_LEADER_ELECTION;
+        private String leaseName = DEFAULT_LEADER_ELECTION_LEASE_NAME;
+        private String leaseNamespace;
+        private long leaseDurationS = DEFAULT_LEADER_ELECTION_LEASE_DURATION_S;
+        private boolean sharding = DEFAULT_SHARDING;
+        private String shardingGroup = DEFAULT_SHARDING_GROUP;
+        private ShardManager.ShardKey shardingKey = DEFAULT_SHARDING_KEY;
+        private WatchMode watchMode = DEFAULT_WATCH_MODE;
+        private int watchModeThreshold = DEFAULT_WATCH_MODE_THRESHOLD;
+        private Map<String, String> namespaceSelector;
+
+        /**
+         * @param namespaces  namespace in which the operator will run and create resources
+         * @return this builder
+         */
+        public Builder withNamespaces(Set<String> namespaces) {
+            this.namespaces = namespaces;
+            return this;
+        }
+
+        /**
+         * @param metrics  whether the metrics server for prometheus should be started
+         * @return this builder
+         */
+        public Builder withMetrics(boolean metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param metricsJvm  whether to expose the internal JVM metrics, like heap, # of threads, etc.
+         * @return this builder
+         */
+        public Builder withMetricsJvm(boolean metricsJvm) {
+            this.metricsJvm = metricsJvm;
+            return this;
+        }
+
+        /**
+         * @param metricsPort  on which port the metrics server should be listening
+         * @return this builder
+         */
+        public Builder withMetricsPort(int metricsPort) {
+            this.metricsPort = metricsPort;
+            return this;
+        }
+
+        /**
+         * @param reconciliationIntervalS  every how many seconds the reconciliation runs
+         * @return this builder
+         */
+        public Builder withReconciliationIntervalS(long reconciliationIntervalS) {
+            this.reconciliationIntervalS = reconciliationIntervalS;
+            return this;
+        }
+
+        /**
+         * @param operationTimeoutMs  timeout for internal operations specified in milliseconds
+         * @return this builder
+         */
+        public Builder withOperationTimeoutMs(long operationTimeoutMs) {
+            this.operationTimeoutMs = operationTimeoutMs;
+            return this;
+        }
+
+        /**
+         * @param workerThreads  how many threads handle the events for each operator by default
+         * @return this builder
+         */
+        public Builder withWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        /**
+         * @param reconciliationConcurrency  how many full reconciliations can run at the same time
+         * @return this builder
+         */
+        public Builder withReconciliationConcurrency(int reconciliationConcurrency) {
+            this.reconciliationConcurrency = reconciliationConcurrency;
+            return this;
+        }
+
+        /**
+         * @param reconciliationAdaptive  whether the reconciliation interval adapts to the observed drift
+         * @return this builder
+         */
+        public Builder withReconciliationAdaptive(boolean reconciliationAdaptive) {
+            this.reconciliationAdaptive = reconciliationAdaptive;
+            return this;
+        }
+
+        /**
+         * @param reconciliationMinIntervalS  the shortest interval in the adaptive mode
+         * @return this builder
+         */
+        public Builder withReconciliationMinIntervalS(long reconciliationMinIntervalS) {
+            this.reconciliationMinIntervalS = reconciliationMinIntervalS;
+            return this;
+        }
+
+        /**
+         * @param reconciliationMaxIntervalS  the longest interval in the adaptive mode
+         * @return this builder
+         */
+        public Builder withReconciliationMaxIntervalS(long reconciliationMaxIntervalS) {
+            this.reconciliationMaxIntervalS = reconciliationMaxIntervalS;
+            return this;
+        }
+
+        /**
+         * @param leaderElection  whether only the replica holding the lease handles the events
+         * @return this builder
+         */
+        public Builder withLeaderElection(boolean leaderElection) {
+            this.leaderElection = leaderElection;
+            return this;
+        }
+
+        /**
+         * @param leaseName  name of the lease used for the leader election
+         * @return this builder
+         */
+        public Builder withLeaseName(String leaseName) {
+            this.leaseName = leaseName;
+            return this;
+        }
+
+        /**
+         * @param leaseNamespace  namespace of the lease, null means the namespace the operator is deployed in
+         * @return this builder
+         */
+        public Builder withLeaseNamespace(String leaseNamespace) {
+            this.leaseNamespace = leaseNamespace;
+            return this;
+        }
+
+        /**
+         * @param leaseDurationS  how long the lease is valid without being renewed
+         * @return this builder
+         */
+        public Builder withLeaseDurationS(long leaseDurationS) {
+            this.leaseDurationS = leaseDurationS;
+            return this;
+        }
+
+        /**
+         * @param sharding  whether the resources are split among the replicas
+         * @return this builder
+         */
+        public Builder withSharding(boolean sharding) {
+            this.sharding = sharding;
+            return this;
+        }
+
+        /**
+         * @param shardingGroup  name of the group of the replicas sharing the resources
+         * @return this builder
+         */
+        public Builder withShardingGroup(String shardingGroup) {
+            this.shardingGroup = shardingGroup;
+            return this;
+        }
+
+        /**
+         * @param shardingKey  whether the resources or whole namespaces are assigned to the replicas
+         * @return this builder
+         */
+        public Builder withShardingKey(ShardManager.ShardKey shardingKey) {
+            this.shardingKey = shardingKey;
+            return this;
+        }
+
+        /**
+         * @param watchMode  whether to watch the listed namespaces one by one or all of them at once
+         * @return this builder
+         */
+        public Builder withWatchMode(WatchMode watchMode) {
+            this.watchMode = watchMode;
+            return this;
+        }
+
+        /**
+         * @param watchModeThreshold  from how many namespaces all of them are watched at once in the auto mode
+         * @return this builder
+         */
+        public Builder withWatchModeThreshold(int watchModeThreshold) {
+            this.watchModeThreshold = watchModeThreshold;
+            return this;
+        }
+
+        /**
+         * @param namespaceSelector  labels of the namespaces to watch instead of the fixed namespaces, or null
+         * @return this builder
+         */
+        public Builder withNamespaceSelector(Map<String, String> namespaceSelector) {
+            this.namespaceSelector = namespaceSelector;
+            return this;
+        }
+
+        public OperatorConfig build() {
+            return new OperatorConfig(this);
+        }
     }
 
     /**
@@ -111,8 +424,128 @@ public class OperatorConfig {
             operationTimeout = Long.parseLong(operationTimeoutEnvVar);
         }
 
-        return new OperatorConfig(namespaces, metricsAux, metricsJvmAux, metricsPortAux, reconciliationInterval,
-                operationTimeout);
+        int workerThreads = DEFAULT_WORKER_THREADS;
+        String workerThreadsEnvVar = map.get(WORKER_THREADS);
+        if (workerThreadsEnvVar != null) {
+            workerThreads = Math.max(1, Integer.parseInt(workerThreadsEnvVar.trim()));
+        }
+
+        int reconciliationConcurrency = DEFAULT_FULL_RECONCILIATION_CONCURRENCY;
+        String reconciliationConcurrencyEnvVar = map.get(FULL_RECONCILIATION_CONCURRENCY);
+        if (reconciliationConcurrencyEnvVar != null) {
+            reconciliationConcurrency = Math.max(1, Integer.parseInt(reconciliationConcurrencyEnvVar.trim()));
+        }
+
+        boolean reconciliationAdaptive = DEFAULT_FULL_RECONCILIATION_ADAPTIVE;
+        String reconciliationAdaptiveEnvVar = map.get(FULL_RECONCILIATION_ADAPTIVE);
+        if (reconciliationAdaptiveEnvVar != null) {
+            reconciliationAdaptive = "true".equals(reconciliationAdaptiveEnvVar.trim().toLowerCase());
+        }
+
+        long reconciliationMinInterval = Math.min(DEFAULT_FULL_RECONCILIATION_MIN_INTERVAL_S, reconciliationInterval);
+        String reconciliationMinIntervalEnvVar = map.get(FULL_RECONCILIATION_MIN_INTERVAL_S);
+        if (reconciliationMinIntervalEnvVar != null) {
+            reconciliationMinInterval = Math.max(1, Long.parseLong(reconciliationMinIntervalEnvVar.trim()));
+        }
+
+        long reconciliationMaxInterval = Math.max(DEFAULT_FULL_RECONCILIATION_MAX_INTERVAL_S, reconciliationInterval);
+        String reconciliationMaxIntervalEnvVar = map.get(FULL_RECONCILIATION_MAX_INTERVAL_S);
+        if (reconciliationMaxIntervalEnvVar != null) {
+            reconciliationMaxInterval = Math.max(reconciliationMinInterval,
+                    Long.parseLong(reconciliationMaxIntervalEnvVar.trim()));
+        }
+
+        boolean leaderElection = DEFAULT_LEADER_ELECTION;
+        String leaderElectionEnvVar = map.get(LEADER_ELECTION);
+        if (leaderElectionEnvVar != null) {
+            leaderElection = "true".equals(leaderElectionEnvVar.trim().toLowerCase());
+        }
+
+        String leaseName = DEFAULT_LEADER_ELECTION_LEASE_NAME;
+        String leaseNameEnvVar = map.get(LEADER_ELECTION_LEASE_NAME);
+        if (leaseNameEnvVar != null && !leaseNameEnvVar.trim().isEmpty()) {
+            leaseName = leaseNameEnvVar.trim();
+        }
+
+        String leaseNamespace = null;
+        String leaseNamespaceEnvVar = map.get(LEADER_ELECTION_NAMESPACE);
+        if (leaseNamespaceEnvVar != null && !leaseNamespaceEnvVar.trim().isEmpty()) {
+            leaseNamespace = leaseNamespaceEnvVar.trim();
+        }
+
+        long leaseDuration = DEFAULT_LEADER_ELECTION_LEASE_DURATION_S;
+        String leaseDurationEnvVar = map.get(LEADER_ELECTION_LEASE_DURATION_S);
+        if (leaseDurationEnvVar != null) {
+            leaseDuration = Math.max(3, Long.parseLong(leaseDurationEnvVar.trim()));
+        }
+
+        boolean sharding = DEFAULT_SHARDING;
+        String shardingEnvVar = map.get(SHARDING);
+        if (shardingEnvVar != null) {
+            sharding = "true".equals(shardingEnvVar.trim().toLowerCase());
+        }
+
+        String shardingGroup = DEFAULT_SHARDING_GROUP;
+        String shardingGroupEnvVar = map.get(SHARDING_GROUP);
+        if (shardingGroupEnvVar != null && !shardingGroupEnvVar.trim().isEmpty()) {
+            shardingGroup = shardingGroupEnvVar.trim();
+        }
+
+        ShardManager.ShardKey shardingKey = DEFAULT_SHARDING_KEY;
+        String shardingKeyEnvVar = map.get(SHARDING_KEY);
+        if (shardingKeyEnvVar != null && !shardingKeyEnvVar.trim().isEmpty()) {
+            shardingKey = ShardManager.ShardKey.valueOf(shardingKeyEnvVar.trim().toUpperCase());
+        }
+
+        WatchMode watchMode = DEFAULT_WATCH_MODE;
+        String watchModeEnvVar = map.get(WATCH_MODE);
+        if (watchModeEnvVar != null && !watchModeEnvVar.trim().isEmpty()) {
+            watchMode = WatchMode.valueOf(watchModeEnvVar.trim().toUpperCase());
+        }
+
+        int watchModeThreshold = DEFAULT_WATCH_MODE_THRESHOLD;
+        String watchModeThresholdEnvVar = map.get(WATCH_MODE_THRESHOLD);
+        if (watchModeThresholdEnvVar != null) {
+            watchModeThreshold = Math.max(2, Integer.parseInt(watchModeThresholdEnvVar.trim()));
+        }
+
+        Map<String, String> namespaceSelector = null;
+        String namespaceSelectorEnvVar = map.get(WATCH_NAMESPACE_SELECTOR);
+        if (namespaceSelectorEnvVar != null && !namespaceSelectorEnvVar.trim().isEmpty()) {
+            namespaceSelector = new HashMap<>();
+            for (String requirement : namespaceSelectorEnvVar.trim().split("\\s*,+\\s*")) {
+                String[] keyValue = requirement.split("\\s*=+\\s*", 2);
+                if (keyValue.length != 2 || keyValue[0].isEmpty()) {
+                    throw new IllegalArgumentException("Unsupported requirement '" + requirement + "' in "
+                            + WATCH_NAMESPACE_SELECTOR + ", only 'key=value' is supported");
+                }
+                namespaceSelector.put(keyValue[0], keyValue[1]);
+            }
+        }
+
+        return new Builder()
+                .withNamespaces(namespaces)
+                .withMetrics(metricsAux)
+                .withMetricsJvm(metricsJvmAux)
+                .withMetricsPort(metricsPortAux)
+                .withReconciliationIntervalS(reconciliationInterval)
+                .withOperationTimeoutMs(operationTimeout)
+                .withWorkerThreads(workerThreads)
+                .withReconciliationConcurrency(reconciliationConcurrency)
+                .withReconciliationAdaptive(reconciliationAdaptive)
+                .withReconciliationMinIntervalS(reconciliationMinInterval)
+                .withReconciliationMaxIntervalS(reconciliationMaxInterval)
+                .withLeaderElection(leaderElection)
+                .withLeaseName(leaseName)
+                .withLeaseNamespace(leaseNamespace)
+                .withLeaseDurationS(leaseDuration)
+                .withSharding(sharding)
+                .withShardingGroup(shardingGroup)
+                .withShardingKey(shardingKey)
+                .withWatchMode(watchMode)
+                .withWatchModeThreshold(watchModeThreshold)
+                .withNamespaceSelector(namespaceSelector)
+                .build();
     }
 
 
@@ -137,6 +570,112 @@ public class OperatorConfig {
         return operationTimeoutMs;
     }
 
+    /**
+     * @return  how many threads handle the events for each operator, unless the operator says otherwise
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * @return  how many full reconciliations can run at the same time
+     */
+    public int getReconciliationConcurrency() {
+        return reconciliationConcurrency;
+    }
+
+    /**
+     * @return  whether the reconciliation interval is lengthened when there is no drift and shortened when there is
+     */
+    public boolean isReconciliationAdaptive() {
+        return reconciliationAdaptive;
+    }
+
+    /**
+     * @return  the shortest reconciliation interval in seconds in the adaptive mode
+     */
+    public long getReconciliationMinIntervalS() {
+        return reconciliationMinIntervalS;
+    }
+
+    /**
+     * @return  the longest reconciliation interval in seconds in the adaptive mode
+     */
+    public long getReconciliationMaxIntervalS() {
+        return reconciliationMaxIntervalS;
+    }
+
+    /**
+     * @return  whether the replicas elect a leader and only the leader handles the events
+     */
+    public boolean isLeaderElection() {
+        return leaderElection;
+    }
+
+    /**
+     * @return  name of the lease used for the leader election
+     */
+    public String getLeaseName() {
+        return leaseName;
+    }
+
+    /**
+     * @return  namespace of the lease or null if it lives in the namespace the operator is deployed in
+     */
+    public String getLeaseNamespace() {
+        return leaseNamespace;
+    }
+
+    /**
+     * @return  how many seconds the lease is valid without being renewed
+     */
+    public long getLeaseDurationS() {
+        return leaseDurationS;
+    }
+
+    /**
+     * @return  whether the resources are split among the replicas
+     */
+    public boolean isSharding() {
+        return sharding;
+    }
+
+    /**
+     * @return  name of the group of the replicas sharing the resources
+     */
+    public String getShardingGroup() {
+        return shardingGroup;
+    }
+
+    /**
+     * @return  whether the resources (namespace/name) or whole namespaces are assigned to the replicas
+     */
+    public ShardManager.ShardKey getShardingKey() {
+        return shardingKey;
+    }
+
+    /**
+     * @return  whether to watch the listed namespaces one by one or all of them at once
+     */
+    public WatchMode getWatchMode() {
+        return watchMode;
+    }
+
+    /**
+     * @return  from how many namespaces all of them are watched at once in the auto mode
+     */
+    public int getWatchModeThreshold() {
+        return watchModeThreshold;
+    }
+
+    /**
+     * @return  labels of the namespaces that are watched as they come and go, null if the namespaces are fixed by
+     * <code>WATCH_NAMESPACE</code>
+     */
+    public Map<String, String> getNamespaceSelector() {
+        return namespaceSelector;
+    }
+
     public boolean isMetrics() {
         return metrics;
     }
@@ -158,6 +697,21 @@ public class OperatorConfig {
                 ", metricsPort=" + metricsPort +
                 ", reconciliationIntervalS=" + reconciliationIntervalS +
                 ", operationTimeoutMs=" + operationTimeoutMs +
+                ", workerThreads=" + workerThreads +
+                ", reconciliationConcurrency=" + reconciliationConcurrency +
+                ", reconciliationAdaptive=" + reconciliationAdaptive +
+                ", reconciliationMinIntervalS=" + reconciliationMinIntervalS +
+                ", reconciliationMaxIntervalS=" + reconciliationMaxIntervalS +
+                ", leaderElection=" + leaderElection +
+                ", leaseName=" + leaseName +
+                ", leaseNamespace=" + leaseNamespace +
+                ", leaseDurationS=" + leaseDurationS +
+                ", sharding=" + sharding +
+                ", shardingGroup=" + shardingGroup +
+                ", shardingKey=" + shardingKey +
+                ", watchMode=" + watchMode +
+                ", watchModeThreshold=" + watchModeThreshold +
+                ", namespaceSelector=" + namespaceSelector +
                 '}';
     }
 }
@@ -0,0 +1,86 @@
+package io.radanalytics.operator.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.MapMaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the operators written at build time by the <code>OperatorIndexProcessor</code>
+ * (abstract-operator-annotator). It maps the class name of each operator to the attributes of its
+ * <code>@Operator</code> annotation, so the operators are set up without reading the annotation by reflection.
+ * The indices of all the jars on the class path are merged; the operators that aren't there (or whose entry can't be
+ * used) are set up from the annotation as before. The indices are read once per class loader of the operators.
+ */
+public final class OperatorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OperatorIndex.class.getName());
+
+    static final String RESOURCE = "META-INF/abstract-operator/operators.json";
+
+    // weak keys, so that the index doesn't keep an undeployed application's class loader around
+    private static final ConcurrentMap<ClassLoader, Map<String, Map<String, Object>>> INDICES = new MapMaker()
+            .weakKeys()
+            .makeMap();
+
+    private OperatorIndex() {
+    }
+
+    /**
+     * @param operatorClass  class of the operator
+     * @return the attributes recorded for the class or null if it isn't in the index
+     */
+    public static Map<String, Object> find(Class<?> operatorClass) {
+        ClassLoader loader = operatorClass.getClassLoader() != null
+                ? operatorClass.getClassLoader() : ClassLoader.getSystemClassLoader();
+        return INDICES.computeIfAbsent(loader, OperatorIndex::load).get(operatorClass.getName());
+    }
+
+    private static Map<String, Map<String, Object>> load(ClassLoader loader) {
+        Map<String, Map<String, Object>> entries = new HashMap<>();
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            Enumeration<URL> resources = loader.getResources(RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                try (InputStream in = url.openStream()) {
+                    entries.putAll(mapper.readValue(in, new TypeReference<Map<String, Map<String, Object>>>() {
+                    }));
+                } catch (IOException e) {
+                    log.warn("Unable to read the operator index {}: {}", url, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to look up the operator indices: {}", e.getMessage());
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    static String string(Map<String, Object> entry, String key) {
+        return (String) entry.get(key);
+    }
+
+    static boolean bool(Map<String, Object> entry, String key) {
+        return (Boolean) entry.get(key);
+    }
+
+    static Number number(Map<String, Object> entry, String key) {
+        return (Number) entry.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    static String[] strings(Map<String, Object> entry, String key) {
+        return ((List<String>) entry.get(key)).toArray(new String[0]);
+    }
+}
@@ -0,0 +1,197 @@
+package io.radanalytics.operator.common;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prometheus collectors of the abstract-operator library. They are registered in the default registry, so they are
+ * exposed by the metrics server next to the <code>operator_info</code> gauge. All of them are labeled by the
+ * operator (entity name) and the namespace. The series related to single events (received events, handlers,
+ * conversions) carry the namespace of the resource, the others carry the namespace the operator is watching, which
+ * is "*" when watching all of them. The watches are shared by the operators, so the series related to them carry
+ * the kind of the watched resource (<code>ConfigMap</code> or the kind of the custom resource) as the operator.
+ */
+public final class OperatorMetrics {
+
+    static final String[] LABELS = {"operator", "namespace"};
+    static final String[] ACTION_LABELS = {"operator", "namespace", "action"};
+    static final String[] DRIFT_LABELS = {"operator", "namespace", "kind"};
+
+    public static final Gauge QUEUE_DEPTH = Gauge.build()
+            .name("operator_work_queue_depth")
+            .help("Number of keys waiting in the work queue.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter QUEUE_COALESCED = Counter.build()
+            .name("operator_work_queue_coalesced_events_total")
+            .help("Number of events merged into an already pending event for the same key.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter QUEUE_DROPPED = Counter.build()
+            .name("operator_work_queue_dropped_events_total")
+            .help("Number of events dropped because the work queue was paused and full.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Histogram QUEUE_WAIT = Histogram.build()
+            .name("operator_work_queue_wait_seconds")
+            .help("Time an event spends in the work queue before a handler picks it up.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter WATCH_RECONNECTS = Counter.build()
+            .name("operator_watch_reconnects_total")
+            .help("Number of attempts to recreate a watch that has been closed with an exception.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Histogram WATCH_RECOVERY = Histogram.build()
+            .name("operator_watch_recovery_seconds")
+            .help("Time between losing a watch and having it running again.")
+            .buckets(0.5, 1, 2.5, 5, 10, 30, 60, 120, 300)
+            .labelNames(LABELS)
+            .register();
+
+    public static final Gauge SHARED_WATCH_SUBSCRIBERS = Gauge.build()
+            .name("operator_shared_watch_subscribers")
+            .help("Number of operators sharing one watch.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Histogram NAMESPACE_STARTUP = Histogram.build()
+            .name("operator_namespace_startup_seconds")
+            .help("Time between discovering a namespace by its labels and enqueueing its resources for the handlers.")
+            .buckets(0.01, 0.05, 0.1, 0.5, 1, 2.5, 5, 10, 30)
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter STATUS_WRITES = Counter.build()
+            .name("operator_status_writes_total")
+            .help("Number of custom resource status updates by result (written, skipped, coalesced, retried, gone, failed).")
+            .labelNames("operator", "namespace", "result")
+            .register();
+
+    public static final Gauge STARTUP = Gauge.build()
+            .name("operator_startup_seconds")
+            .help("Duration of the startup phases: crds is the initialization of all the custom resource definitions, ready is the time from the start of the JVM until all the operators are running.")
+            .labelNames("phase")
+            .register();
+
+    public static final Histogram BATCH_SIZE = Histogram.build()
+            .name("operator_batch_size")
+            .help("Number of events delivered to onBatch at once.")
+            .buckets(1, 2, 5, 10, 25, 50, 100, 250, 500)
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter HANDLER_RETRIES = Counter.build()
+            .name("operator_handler_retries_total")
+            .help("Number of events enqueued again because the handler has failed.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Gauge HANDLER_RETRY_BACKOFF = Gauge.build()
+            .name("operator_handler_retry_backoff_seconds")
+            .help("The most recent delay before an event is retried, 0 when there is nothing to retry.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter EVENTS_RECEIVED = Counter.build()
+            .name("operator_events_received_total")
+            .help("Number of events received from the watch.")
+            .labelNames(ACTION_LABELS)
+            .register();
+
+    public static final Histogram HANDLER_DURATION = Histogram.build()
+            .name("operator_handler_duration_seconds")
+            .help("Time spent in onAdd, onModify, onDelete (or onBatch, with action BATCH).")
+            .buckets(0.005, 0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60)
+            .labelNames(ACTION_LABELS)
+            .register();
+
+    public static final Counter HANDLER_ERRORS = Counter.build()
+            .name("operator_handler_errors_total")
+            .help("Number of exceptions thrown by the handlers.")
+            .labelNames(ACTION_LABELS)
+            .register();
+
+    public static final Counter CONVERSION_FAILURES = Counter.build()
+            .name("operator_conversion_failures_total")
+            .help("Number of config maps or custom resources that couldn't be converted to the entity.")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Histogram FULL_RECONCILIATION_DURATION = Histogram.build()
+            .name("operator_full_reconciliation_duration_seconds")
+            .help("Time spent in fullReconciliation().")
+            .buckets(0.01, 0.05, 0.1, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300)
+            .labelNames(LABELS)
+            .register();
+
+    public static final Counter FULL_RECONCILIATION_ERRORS = Counter.build()
+            .name("operator_full_reconciliation_errors_total")
+            .help("Number of exceptions thrown by fullReconciliation().")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Gauge FULL_RECONCILIATION_INTERVAL = Gauge.build()
+            .name("operator_full_reconciliation_interval_seconds")
+            .help("Current interval between the full reconciliations (before applying the jitter).")
+            .labelNames(LABELS)
+            .register();
+
+    public static final Gauge DRIFT = Gauge.build()
+            .name("operator_drift_resources")
+            .help("Number of entities found new, changed or missing by the last differential full reconciliation.")
+            .labelNames(DRIFT_LABELS)
+            .register();
+
+    public static final Counter DRIFT_DETECTED = Counter.build()
+            .name("operator_drift_detected_total")
+            .help("Number of entities found new, changed or missing by the differential full reconciliations.")
+            .labelNames(DRIFT_LABELS)
+            .register();
+
+    public static final Gauge LEADER = Gauge.build()
+            .name("operator_leader")
+            .help("1 if this replica holds the lease, 0 otherwise.")
+            .labelNames("lease")
+            .register();
+
+    public static final Counter LEADER_TRANSITIONS = Counter.build()
+            .name("operator_leader_transitions_total")
+            .help("Number of times this replica has acquired or lost the lease.")
+            .labelNames("lease", "change")
+            .register();
+
+    public static final Histogram LEASE_RENEW = Histogram.build()
+            .name("operator_leader_lease_renew_seconds")
+            .help("Time spent acquiring or renewing the lease.")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5)
+            .labelNames("lease")
+            .register();
+
+    public static final Gauge SHARD_MEMBERS = Gauge.build()
+            .name("operator_shard_members")
+            .help("Number of replicas sharing the resources.")
+            .labelNames("group")
+            .register();
+
+    public static final Counter SHARD_REBALANCES = Counter.build()
+            .name("operator_shard_rebalances_total")
+            .help("Number of times the resources have been reassigned because a replica has joined or left.")
+            .labelNames("group")
+            .register();
+
+    public static double secondsSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private OperatorMetrics() {
+    }
+}
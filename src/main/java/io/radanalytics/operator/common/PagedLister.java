@@ -0,0 +1,93 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListMeta;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lists the resources in pages using the <code>limit</code> and <code>continue</code> parameters of the list call.
+ * The pages are fetched lazily while the stream is being consumed, so at most one page of the raw resources is held in
+ * memory at a time. All the pages belong to the same snapshot, so the resource version of the list can be used for
+ * starting a watch once the stream has been consumed.
+ *
+ * @param <R> type of the listed resources
+ */
+public class PagedLister<R extends HasMetadata> {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final BiFunction<Integer, String, ? extends KubernetesResourceList<R>> listPage;
+    private final int pageSize;
+    private volatile String resourceVersion;
+
+    /**
+     * @param listPage  function that returns one page for given limit and continue token (null for the first page),
+     *                  typically <code>watchable::list</code>
+     * @param pageSize  maximum number of items in one page
+     */
+    public PagedLister(BiFunction<Integer, String, ? extends KubernetesResourceList<R>> listPage, int pageSize) {
+        this.listPage = listPage;
+        this.pageSize = pageSize;
+    }
+
+    public PagedLister(BiFunction<Integer, String, ? extends KubernetesResourceList<R>> listPage) {
+        this(listPage, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @return stream of all the resources, the first page is requested when the stream starts being consumed
+     */
+    public Stream<R> stream() {
+        Iterator<R> it = new PageIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * @return resource version of the listed snapshot or null if no page has been fetched yet
+     */
+    public String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    private class PageIterator implements Iterator<R> {
+        private Iterator<R> page = Collections.emptyIterator();
+        private String continueToken = null;
+        private boolean lastPage = false;
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext()) {
+                if (lastPage) {
+                    return false;
+                }
+                KubernetesResourceList<R> list = listPage.apply(pageSize, continueToken);
+                ListMeta metadata = list.getMetadata();
+                if (metadata != null) {
+                    resourceVersion = metadata.getResourceVersion();
+                    continueToken = metadata.getContinue();
+                }
+                lastPage = metadata == null || continueToken == null || continueToken.isEmpty();
+                page = list.getItems() == null ? Collections.emptyIterator() : list.getItems().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.radanalytics.operator.common;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by <code>onBatch</code> when only some events of the batch have failed. The other events are considered
+ * handled and only the failed ones are retried, whereas any other exception makes the whole batch to be retried.
+ */
+public class PartialBatchFailureException extends RuntimeException {
+
+    private final List<? extends Event<?>> failed;
+
+    /**
+     * @param failed  the events of the batch whose handling has failed
+     * @param cause   the first of the failures
+     */
+    public PartialBatchFailureException(List<? extends Event<?>> failed, Throwable cause) {
+        super(failed.size() + " event(s) of the batch have failed", cause);
+        this.failed = Collections.unmodifiableList(failed);
+    }
+
+    public List<? extends Event<?>> getFailed() {
+        return failed;
+    }
+}
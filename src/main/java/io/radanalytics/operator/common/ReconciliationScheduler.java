@@ -0,0 +1,200 @@
+package io.radanalytics.operator.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.prometheus.client.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic full reconciliations of all the operators and namespaces. There is only one timer thread and
+ * a fixed number of threads that execute the reconciliations, so at most <code>concurrency</code> of them run at the
+ * same time, no matter how many operators and namespaces there are.
+ *
+ * Each run is scheduled after the previous one has finished and the interval is randomized by
+ * &plusmn;<code>JITTER</code>, so the reconciliations of different operators spread over the interval instead of
+ * firing in the same second.
+ *
+ * In the adaptive mode, each operator and namespace has its own interval. It's doubled (up to the maximum) after every
+ * second consecutive run that has found no drift and no handler errors, and halved (down to the minimum) whenever
+ * the run fails or finds some drift (see {@link AbstractOperator#reportDrift(DriftReport)}) or the handlers have
+ * failed since the previous run. Both the drift and the handler errors are counted per namespace, so a noisy
+ * namespace doesn't shorten the interval of the quiet ones.
+ */
+public class ReconciliationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationScheduler.class.getName());
+
+    static final double JITTER = 0.1;
+    private static final long FIRST_RUN_DELAY_MS = 2_000;
+    private static final long FIRST_RUN_SPREAD_MS = 5_000;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService runners;
+    private final long intervalMs;
+    private final boolean adaptive;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final List<Task> tasks = new CopyOnWriteArrayList<>();
+    private volatile boolean shutdown = false;
+
+    public ReconciliationScheduler(long intervalS, int concurrency) {
+        this(intervalS, concurrency, false, intervalS, intervalS);
+    }
+
+    public ReconciliationScheduler(long intervalS, int concurrency, boolean adaptive, long minIntervalS,
+                                   long maxIntervalS) {
+        this.intervalMs = TimeUnit.SECONDS.toMillis(intervalS);
+        this.adaptive = adaptive;
+        this.minIntervalMs = TimeUnit.SECONDS.toMillis(Math.min(minIntervalS, intervalS));
+        this.maxIntervalMs = TimeUnit.SECONDS.toMillis(Math.max(maxIntervalS, intervalS));
+        this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("reconciliation-timer-%d")
+                .setDaemon(true)
+                .build());
+        this.runners = Executors.newFixedThreadPool(Math.max(1, concurrency), new ThreadFactoryBuilder()
+                .setNameFormat("reconciliation-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Schedules the periodic full reconciliation of the operator. The first run happens within a few seconds.
+     *
+     * @param operator   operator to reconcile
+     * @param namespace  namespace the operator is running for, the reconciliation covers only this namespace
+     */
+    public void schedule(AbstractOperator<?> operator, String namespace) {
+        Task task = new Task(operator, namespace);
+        tasks.add(task);
+        long firstDelay = FIRST_RUN_DELAY_MS + ThreadLocalRandom.current().nextLong(FIRST_RUN_SPREAD_MS);
+        log.info("full reconciliation for {} scheduled (periodically each {} seconds{})", operator.getName(),
+                TimeUnit.MILLISECONDS.toSeconds(intervalMs), adaptive ? String.format(", adapting between %d and %d",
+                        TimeUnit.MILLISECONDS.toSeconds(minIntervalMs), TimeUnit.MILLISECONDS.toSeconds(maxIntervalMs))
+                        : "");
+        log.info("the first full reconciliation for {} is happening in {} ms", operator.getName(), firstDelay);
+        task.scheduleIn(firstDelay);
+    }
+
+    /**
+     * Runs the full reconciliation of the operator (in all its namespaces) as soon as possible instead of waiting for
+     * the interval to pass. Reconciliations that are already running aren't affected.
+     *
+     * @param operator  operator to reconcile
+     */
+    public void triggerNow(AbstractOperator<?> operator) {
+        for (Task task : tasks) {
+            if (task.operator == operator) {
+                task.triggerNow();
+            }
+        }
+    }
+
+    /**
+     * Stops scheduling new reconciliations and interrupts those that are running.
+     */
+    public void shutdown() {
+        shutdown = true;
+        timer.shutdownNow();
+        runners.shutdownNow();
+        tasks.clear();
+    }
+
+    private static long withJitter(long intervalMs) {
+        double factor = 1 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (intervalMs * factor);
+    }
+
+    private class Task implements Runnable {
+        private final AbstractOperator<?> operator;
+        private final String namespace;
+        private final Gauge.Child intervalGauge;
+        private long currentIntervalMs = intervalMs;
+        private long handlerErrors = 0;
+        private int cleanRuns = 0;
+        private ScheduledFuture<?> next;
+
+        private Task(AbstractOperator<?> operator, String namespace) {
+            this.operator = operator;
+            this.namespace = namespace;
+            this.intervalGauge = OperatorMetrics.FULL_RECONCILIATION_INTERVAL.labels(operator.getEntityName(),
+                    namespace);
+            intervalGauge.set(currentIntervalMs / 1000.0);
+        }
+
+        private synchronized void scheduleIn(long delayMs) {
+            if (shutdown) {
+                return;
+            }
+            try {
+                // the timer only hands the task over, the reconciliation itself runs on one of the runners
+                next = timer.schedule(() -> runners.submit(this), delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+            }
+        }
+
+        private synchronized void triggerNow() {
+            // if the cancellation fails, the task has been already handed over to the runners
+            if (!shutdown && next != null && next.cancel(false)) {
+                scheduleIn(0);
+            }
+        }
+
+        private void adapt(boolean failed) {
+            DriftReport report = operator.pollDriftReport(namespace);
+            long errors = operator.getHandlerErrors(namespace);
+            boolean newErrors = errors > handlerErrors;
+            handlerErrors = errors;
+            long previous = currentIntervalMs;
+            if (failed || newErrors || (report != null && report.hasDrift())) {
+                cleanRuns = 0;
+                currentIntervalMs = Math.max(minIntervalMs, currentIntervalMs / 2);
+            } else if (++cleanRuns >= 2) {
+                cleanRuns = 0;
+                currentIntervalMs = Math.min(maxIntervalMs, currentIntervalMs * 2);
+            }
+            if (currentIntervalMs != previous) {
+                log.info("full reconciliation interval of {} in namespace {} changed to {} seconds", operator.getName(),
+                        namespace, TimeUnit.MILLISECONDS.toSeconds(currentIntervalMs));
+                intervalGauge.set(currentIntervalMs / 1000.0);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!operator.isActive()) {
+                log.debug("skipping full reconciliation of {} in namespace {}, this replica is a standby one",
+                        operator.getName(), namespace);
+                scheduleIn(withJitter(currentIntervalMs));
+                return;
+            }
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                operator.runFullReconciliation(namespace);
+            } catch (Throwable t) {
+                failed = true;
+                OperatorMetrics.FULL_RECONCILIATION_ERRORS.labels(operator.getEntityName(), namespace).inc();
+                log.warn("error during full reconciliation of {} in namespace {}: {}", operator.getName(), namespace,
+                        t.getMessage(), t);
+            } finally {
+                OperatorMetrics.FULL_RECONCILIATION_DURATION.labels(operator.getEntityName(), namespace)
+                        .observe(OperatorMetrics.secondsSince(start));
+                if (adaptive) {
+                    adapt(failed);
+                }
+                scheduleIn(withJitter(currentIntervalMs));
+            }
+        }
+    }
+}
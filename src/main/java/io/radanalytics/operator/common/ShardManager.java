@@ -0,0 +1,290 @@
+package io.radanalytics.operator.common;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Splits the config maps or custom resources among the replicas of the operator. Each replica holds its own
+ * <code>coordination.k8s.io/v1</code> Lease labeled by the shard group and renews it every third of the lease
+ * duration. The replicas whose leases have been renewed within the lease duration are the members of the group and
+ * the resources are assigned to them by consistent hashing of <code>namespace/name</code> (or only of the namespace),
+ * so when a replica joins or leaves, only its share of the resources moves.
+ *
+ * The expiration of the other leases is measured by the local clock since their last change has been observed, so
+ * the clocks of the replicas don't need to be in sync. A replica owns nothing until it has joined the group and as
+ * soon as it fails to renew its own lease within two thirds of the lease duration, so its share is free before the
+ * others take it over. The leases that have been expired for ten lease durations (replicas that didn't leave
+ * cleanly) are deleted.
+ */
+public class ShardManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardManager.class.getName());
+
+    public enum ShardKey {
+        NAME, NAMESPACE
+    }
+
+    static final String GROUP_LABEL = "radanalytics.io/shard-group";
+    private static final int VIRTUAL_NODES = 64;
+    private static final int STALE_LEASE_DURATIONS = 10;
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final DateTimeFormatter MICRO_TIME = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX")
+            .withZone(ZoneOffset.UTC);
+
+    private final KubernetesClient client;
+    private final String namespace;
+    private final String group;
+    private final String identity;
+    private final String leaseName;
+    private final long leaseDurationMs;
+    private final long renewDeadlineMs;
+    private final ShardKey shardKey;
+    private final Consumer<BiPredicate<String, String>> onRebalance;
+
+    private final Gauge.Child members;
+    private final Counter.Child rebalances;
+
+    // lease name -> (holder@renewTime, when that has been observed)
+    private final Map<String, String> observedRecords = new HashMap<>();
+    private final Map<String, Long> observedAt = new HashMap<>();
+    private volatile NavigableMap<Long, String> ring = Collections.emptyNavigableMap();
+    private volatile long lastRenewAt;
+    private SortedSet<String> currentMembers = new TreeSet<>();
+    private ScheduledExecutorService renewer;
+
+    /**
+     * @param client          kubernetes client
+     * @param namespace       namespace of the leases
+     * @param group           name of the group, all the replicas of the operator must use the same one
+     * @param identity        unique identity of this replica, typically the pod name
+     * @param leaseDurationS  how long a lease is valid after it has been renewed
+     * @param shardKey        whether the resources or whole namespaces are assigned to the replicas
+     * @param onRebalance     called when the members of the group have changed, it gets what this replica has owned
+     *                        before, so that it can pick up the resources that have moved to it
+     */
+    public ShardManager(KubernetesClient client, String namespace, String group, String identity, long leaseDurationS,
+                        ShardKey shardKey, Consumer<BiPredicate<String, String>> onRebalance) {
+        this.client = client;
+        this.namespace = namespace;
+        this.group = group;
+        this.identity = identity;
+        this.leaseName = (group + "-" + identity).toLowerCase().replaceAll("[^a-z0-9.-]", "-");
+        this.leaseDurationMs = TimeUnit.SECONDS.toMillis(leaseDurationS);
+        this.renewDeadlineMs = leaseDurationMs * 2 / 3;
+        this.shardKey = shardKey;
+        this.onRebalance = onRebalance;
+        this.members = OperatorMetrics.SHARD_MEMBERS.labels(group);
+        this.rebalances = OperatorMetrics.SHARD_REBALANCES.labels(group);
+    }
+
+    /**
+     * Joins the group. The first round is done synchronously, so the ownership is known when this method returns.
+     * The lease is then renewed by a thread of its own, so slow API calls don't hold up the shared scheduler.
+     */
+    public synchronized void start() {
+        log.info("Joining shard group {} in namespace {} as {}", group, namespace, identity);
+        tick();
+        long retryPeriodMs = Math.max(1_000, leaseDurationMs / 3);
+        renewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("shard-manager-" + leaseName)
+                .setDaemon(true)
+                .build());
+        renewer.scheduleWithFixedDelay(this::tick, retryPeriodMs, retryPeriodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leaves the group by deleting the lease, so that the other replicas take over right away.
+     */
+    public void stop() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        synchronized (this) {
+            try {
+                client.customResource(LeaderElector.LEASES).delete(namespace, leaseName);
+            } catch (Exception e) {
+                log.warn("Unable to delete lease {}: {}", leaseName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param namespace  namespace of the resource
+     * @param name       name of the resource
+     * @return true if this replica is responsible for the resource, false if it hasn't joined the group or its own
+     * lease hasn't been renewed within the renew deadline
+     */
+    public boolean owns(String namespace, String name) {
+        // not a member yet, or the others are about to take over our share
+        return withinRenewDeadline() && isOwner(ring, namespace, name);
+    }
+
+    private boolean isOwner(NavigableMap<Long, String> r, String namespace, String name) {
+        if (r.isEmpty()) {
+            return false;
+        }
+        String key = shardKey == ShardKey.NAMESPACE ? namespace : Event.keyOf(namespace, name);
+        long hash = HASH.hashString(String.valueOf(key), StandardCharsets.UTF_8).asLong();
+        Map.Entry<Long, String> owner = r.ceilingEntry(hash);
+        return identity.equals((owner != null ? owner : r.firstEntry()).getValue());
+    }
+
+    public synchronized Set<String> getMembers() {
+        return Collections.unmodifiableSortedSet(new TreeSet<>(currentMembers));
+    }
+
+    synchronized void tick() {
+        try {
+            long renewStart = System.nanoTime();
+            renew();
+            lastRenewAt = renewStart;
+            SortedSet<String> alive = listMembers();
+            alive.add(identity);
+            if (!alive.equals(currentMembers)) {
+                log.info("Members of shard group {} have changed from {} to {}", group, currentMembers, alive);
+                NavigableMap<Long, String> previous = ring;
+                currentMembers = alive;
+                ring = buildRing(alive);
+                members.set(alive.size());
+                rebalances.inc();
+                onRebalance.accept((ns, name) -> isOwner(previous, ns, name));
+            }
+        } catch (Exception e) {
+            log.warn("Unable to update the members of shard group {}: {}", group, e.getMessage());
+            if (!currentMembers.isEmpty() && !withinRenewDeadline()) {
+                // owns nothing from now on, the full reconciliation after joining again picks up the share
+                log.warn("Lease {} hasn't been renewed for {} ms, leaving shard group {}", leaseName, renewDeadlineMs,
+                        group);
+                currentMembers = new TreeSet<>();
+                ring = Collections.emptyNavigableMap();
+                members.set(0);
+            }
+        }
+    }
+
+    private boolean withinRenewDeadline() {
+        return System.nanoTime() - lastRenewAt < TimeUnit.MILLISECONDS.toNanos(renewDeadlineMs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void renew() throws IOException {
+        String now = MICRO_TIME.format(Instant.now());
+        Map<String, Object> lease;
+        try {
+            lease = client.customResource(LeaderElector.LEASES).get(namespace, leaseName);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw e;
+            }
+            lease = null;
+        }
+        if (lease == null) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("name", leaseName);
+            metadata.put("namespace", namespace);
+            metadata.put("labels", Collections.singletonMap(GROUP_LABEL, group));
+            lease = new HashMap<>();
+            lease.put("apiVersion", LeaderElector.LEASES.getGroup() + "/" + LeaderElector.LEASES.getVersion());
+            lease.put("kind", "Lease");
+            lease.put("metadata", metadata);
+            lease.put("spec", leaseSpec(now));
+            client.customResource(LeaderElector.LEASES).create(namespace, lease);
+        } else {
+            lease.put("spec", leaseSpec(now));
+            client.customResource(LeaderElector.LEASES).edit(namespace, leaseName, lease);
+        }
+    }
+
+    private Map<String, Object> leaseSpec(String now) {
+        Map<String, Object> spec = new HashMap<>();
+        spec.put("holderIdentity", identity);
+        spec.put("leaseDurationSeconds", TimeUnit.MILLISECONDS.toSeconds(leaseDurationMs));
+        spec.put("renewTime", now);
+        return spec;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SortedSet<String> listMembers() {
+        Map<String, Object> list = client.customResource(LeaderElector.LEASES)
+                .list(namespace, Collections.singletonMap(GROUP_LABEL, group));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) list.getOrDefault("items",
+                Collections.emptyList());
+        long now = System.nanoTime();
+        SortedSet<String> alive = new TreeSet<>();
+        Set<String> seen = new TreeSet<>();
+        for (Map<String, Object> item : items) {
+            Map<String, Object> metadata = (Map<String, Object>) item.get("metadata");
+            Map<String, Object> spec = (Map<String, Object>) item.get("spec");
+            if (metadata == null || spec == null || spec.get("holderIdentity") == null) {
+                continue;
+            }
+            String name = (String) metadata.get("name");
+            String holder = (String) spec.get("holderIdentity");
+            String record = holder + "@" + spec.get("renewTime");
+            seen.add(name);
+            if (!record.equals(observedRecords.get(name))) {
+                observedRecords.put(name, record);
+                observedAt.put(name, now);
+            }
+            long age = now - observedAt.get(name);
+            if (age <= TimeUnit.MILLISECONDS.toNanos(leaseDurationMs)) {
+                alive.add(holder);
+            } else if (age > TimeUnit.MILLISECONDS.toNanos(STALE_LEASE_DURATIONS * leaseDurationMs)
+                    && !leaseName.equals(name)) {
+                deleteStale(name);
+            }
+        }
+        observedRecords.keySet().retainAll(seen);
+        observedAt.keySet().retainAll(seen);
+        return alive;
+    }
+
+    private void deleteStale(String name) {
+        try {
+            client.customResource(LeaderElector.LEASES).delete(namespace, name);
+            log.info("Stale lease {} of shard group {} has been deleted", name, group);
+        } catch (Exception e) {
+            // another replica may have deleted it already
+            log.debug("Unable to delete stale lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static NavigableMap<Long, String> buildRing(Set<String> members) {
+        NavigableMap<Long, String> ring = new TreeMap<>();
+        for (String member : members) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(HASH.hashString(member + "#" + i, StandardCharsets.UTF_8).asLong(), member);
+            }
+        }
+        return ring;
+    }
+}
@@ -0,0 +1,500 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.radanalytics.operator.SDKEntrypoint;
+import io.radanalytics.operator.common.crd.InfoClass;
+import io.radanalytics.operator.common.crd.InfoClassDoneable;
+import io.radanalytics.operator.common.crd.InfoList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One watch (and one store of the watched resources) shared by all the operators in the JVM that are interested in
+ * the same kind of resources in the same namespace. The informers are kept in a registry keyed by
+ * <code>(kind, namespace, selector)</code>; the first subscriber lists the resources and opens the watch, the later
+ * ones get the current content of the store replayed, and the watch is closed when the last subscriber leaves. Each
+ * resource is deserialized once and then passed to all the subscribers, which filter and convert it on their own.
+ *
+ * The config map operators are labeled as <code>prefix/kind=entityName</code>, so the informer selects only by the
+ * existence of the label keys and one watch per namespace serves all the config map operators with the same prefix.
+ *
+ * A watch that has been closed with an exception is recreated after a jittered exponential backoff from the last seen
+ * resource version. Only if that is no longer available (HTTP 410 Gone), the resources are listed again and the list
+ * is passed to all the subscribers.
+ *
+ * The resources are listed without holding the lock of the informer, the lock is held only while the listed
+ * resources replace the content of the store or an event updates it. The subscribers are called in the same order
+ * from the shared executors one at a time, but outside of the lock, so a slow subscriber doesn't hold up the watch,
+ * the new subscriptions or the other subscribers' replays.
+ *
+ * @param <R> type of the watched resources
+ */
+public class SharedInformer<R extends HasMetadata> {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedInformer.class.getName());
+
+    private static final Backoff WATCH_BACKOFF = new Backoff(1_000, 60_000);
+    // guarded by itself
+    private static final Map<String, SharedInformer<?>> REGISTRY = new HashMap<>();
+
+    /**
+     * Receives the resources from the informer. The methods are never called concurrently for the same informer and
+     * never with the lock of the informer held.
+     *
+     * @param <R> type of the watched resources
+     */
+    public interface Listener<R extends HasMetadata> {
+
+        /**
+         * Called when the resources are about to be listed, either because the informer has just started, the
+         * listener has just subscribed or the resource version of the watch is gone.
+         *
+         * @return consumer of the listed resources
+         */
+        ListSink<R> onList();
+
+        void onEvent(Watcher.Action action, R resource);
+    }
+
+    public interface ListSink<R> extends Consumer<R> {
+
+        /**
+         * Called once all the resources have been passed to the sink.
+         */
+        void finish();
+    }
+
+    private final String key;
+    private final String kind;
+    private final String namespace;
+    private final Supplier<FilterWatchListDeletable<R, ? extends KubernetesResourceList<R>, Boolean, Watch, Watcher<R>>> watchable;
+
+    // guarded by this
+    private final List<Listener<R>> listeners = new ArrayList<>();
+    // listener -> completed once it has received the initial list, guarded by this
+    private final Map<Listener<R>, CompletableFuture<Void>> initialLists = new HashMap<>();
+    // the listeners that have received the initial list, changed only by the deliveries (and unsubscribe)
+    private final List<Listener<R>> active = new CopyOnWriteArrayList<>();
+    private final Map<String, R> store = new ConcurrentHashMap<>();
+    // deliveries to the listeners in the order of the changes of the store, guarded by this
+    private final Queue<Runnable> deliveries = new ArrayDeque<>();
+    private boolean delivering = false; // guarded by this
+    // serializes opening of the watch, the list is done with this one held
+    private final Object openLock = new Object();
+    private int subscribers = 0; // guarded by REGISTRY
+
+    private volatile Watch watch;
+    private volatile String lastResourceVersion;
+    private volatile boolean relistNeeded = false;
+    private volatile boolean closed = false;
+    private volatile int reconnectAttempts = 0;
+    private volatile long disconnectedAt = 0;
+
+    private SharedInformer(String key, String kind, String namespace,
+                           Supplier<FilterWatchListDeletable<R, ? extends KubernetesResourceList<R>, Boolean, Watch, Watcher<R>>> watchable) {
+        this.key = key;
+        this.kind = kind;
+        this.namespace = namespace;
+        this.watchable = watchable;
+    }
+
+    /**
+     * Subscribes to the config maps having all the label keys of the selector. The listener is responsible for
+     * matching the label values.
+     *
+     * @param client     kubernetes client, the one of the first subscriber is used for the watch
+     * @param namespace  namespace to watch or "*" for all of them
+     * @param selector   labels of the config maps the listener is interested in
+     * @param listener   listener that receives the config maps
+     * @return the informer, once the listener has received the initial list
+     */
+    public static CompletableFuture<SharedInformer<ConfigMap>> subscribeConfigMaps(KubernetesClient client,
+                                                                                  String namespace,
+                                                                                  Map<String, String> selector,
+                                                                                  Listener<ConfigMap> listener) {
+        Set<String> labelKeys = selector == null ? new TreeSet<>() : new TreeSet<>(selector.keySet());
+        String key = "ConfigMap|" + namespace + "|" + String.join(",", labelKeys);
+        return subscribe(key, () -> new SharedInformer<ConfigMap>(key, "ConfigMap", namespace, () -> {
+            MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> aux =
+                    client.configMaps();
+            FilterWatchListDeletable<ConfigMap, ConfigMapList, Boolean, Watch, Watcher<ConfigMap>> w =
+                    isAllNamespaces(namespace) ? aux.inAnyNamespace() : aux.inNamespace(namespace);
+            for (String labelKey : labelKeys) {
+                w = w.withLabel(labelKey);
+            }
+            return w;
+        }), listener);
+    }
+
+    /**
+     * Subscribes to the custom resources of the given definition.
+     *
+     * @param client     kubernetes client, the one of the first subscriber is used for the watch
+     * @param crd        definition of the custom resources
+     * @param namespace  namespace to watch or "*" for all of them
+     * @param listener   listener that receives the custom resources
+     * @return the informer, once the listener has received the initial list
+     */
+    public static CompletableFuture<SharedInformer<InfoClass>> subscribeCustomResources(KubernetesClient client,
+                                                                                       CustomResourceDefinition crd,
+                                                                                       String namespace,
+                                                                                       Listener<InfoClass> listener) {
+        String key = crd.getMetadata().getName() + "|" + namespace + "|";
+        return subscribe(key, () -> new SharedInformer<InfoClass>(key, crd.getSpec().getNames().getKind(), namespace, () -> {
+            MixedOperation<InfoClass, InfoList, InfoClassDoneable, Resource<InfoClass, InfoClassDoneable>> aux =
+                    client.customResources(crd, InfoClass.class, InfoList.class, InfoClassDoneable.class);
+            return isAllNamespaces(namespace) ? aux.inAnyNamespace() : aux.inNamespace(namespace);
+        }), listener);
+    }
+
+    /**
+     * Subscribes to the namespaces having the given labels.
+     *
+     * @param client    kubernetes client, the one of the first subscriber is used for the watch
+     * @param selector  labels of the namespaces
+     * @param listener  listener that receives the namespaces
+     * @return the informer, once the listener has received the initial list
+     */
+    public static CompletableFuture<SharedInformer<Namespace>> subscribeNamespaces(KubernetesClient client,
+                                                                                  Map<String, String> selector,
+                                                                                  Listener<Namespace> listener) {
+        String key = "Namespace||" + new TreeMap<>(selector);
+        return subscribe(key, () -> new SharedInformer<Namespace>(key, "Namespace", "*",
+                () -> client.namespaces().withLabels(selector)), listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends HasMetadata> CompletableFuture<SharedInformer<R>> subscribe(String key,
+                                                                                         Supplier<SharedInformer<R>> factory,
+                                                                                         Listener<R> listener) {
+        SharedInformer<R> informer;
+        synchronized (REGISTRY) {
+            informer = (SharedInformer<R>) REGISTRY.computeIfAbsent(key, k -> factory.get());
+            informer.subscribers++;
+            OperatorMetrics.SHARED_WATCH_SUBSCRIBERS.labels(informer.kind, informer.namespace)
+                    .set(informer.subscribers);
+        }
+        return CompletableFuture.supplyAsync(() -> informer.register(listener), SDKEntrypoint.getExecutors())
+                .thenCompose(listed -> listed.thenApply(v -> informer))
+                .whenComplete((res, ex) -> {
+                    if (ex != null) {
+                        // roll the subscription back, the next subscriber opens the watch again if it was the only one
+                        informer.unsubscribe(listener);
+                    }
+                });
+    }
+
+    /**
+     * Removes the listener, the watch is closed once there are no listeners left.
+     *
+     * @param listener  listener passed to the subscribe method
+     */
+    public void unsubscribe(Listener<R> listener) {
+        synchronized (this) {
+            listeners.remove(listener);
+            initialLists.remove(listener);
+        }
+        active.remove(listener);
+        synchronized (REGISTRY) {
+            subscribers--;
+            OperatorMetrics.SHARED_WATCH_SUBSCRIBERS.labels(kind, namespace).set(subscribers);
+            if (subscribers > 0) {
+                return;
+            }
+            REGISTRY.remove(key, this);
+        }
+        log.info("Stopping shared {} watch for namespace {}", kind, namespace);
+        closed = true;
+        Watch w = watch;
+        if (w != null) {
+            w.close();
+        }
+    }
+
+    /**
+     * Passes the stored resources from the namespace to the listener as ADDED events, for instance when the listener
+     * has started to be interested in that namespace. The events are passed after the ones that are already waiting
+     * for the listener, this method doesn't wait for them to be passed.
+     *
+     * @param listener   subscribed listener
+     * @param namespace  namespace of the resources
+     * @return completed once the events have been passed to the listener
+     */
+    public synchronized CompletableFuture<Void> replay(Listener<R> listener, String namespace) {
+        List<R> resources = new ArrayList<>();
+        for (R resource : store.values()) {
+            if (namespace.equals(resource.getMetadata().getNamespace())) {
+                resources.add(resource);
+            }
+        }
+        CompletableFuture<Void> replayed = new CompletableFuture<>();
+        deliver(() -> {
+            try {
+                resources.forEach(resource -> listener.onEvent(Watcher.Action.ADDED, resource));
+                replayed.complete(null);
+            } catch (RuntimeException e) {
+                replayed.completeExceptionally(e);
+                throw e;
+            }
+        });
+        return replayed;
+    }
+
+    /**
+     * @return completed once the listener has received the initial list
+     */
+    private CompletableFuture<Void> register(Listener<R> listener) {
+        CompletableFuture<Void> listed = new CompletableFuture<>();
+        synchronized (openLock) {
+            boolean running;
+            int others;
+            synchronized (this) {
+                others = listeners.size();
+                listeners.add(listener);
+                initialLists.put(listener, listed);
+                running = watch != null;
+                if (running) {
+                    deliverList(listener, new ArrayList<>(store.values()));
+                }
+            }
+            if (running) {
+                log.info("Sharing {} watch for namespace {} with {} other subscriber(s)", kind, namespace, others);
+                return listed;
+            }
+            // the first subscriber or the previous attempt to open the watch has failed
+            try {
+                openWatch(true);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    listeners.remove(listener);
+                    initialLists.remove(listener);
+                }
+                active.remove(listener);
+                throw e;
+            }
+        }
+        log.info("{} watch running for namespace {}{}", kind, namespace,
+                key.endsWith("|") ? "" : " and labels " + key.substring(key.lastIndexOf('|') + 1));
+        return listed;
+    }
+
+    /**
+     * Must be called with the open lock held, so that only one list or watch is being opened at a time.
+     */
+    private void openWatch(boolean relist) {
+        FilterWatchListDeletable<R, ? extends KubernetesResourceList<R>, Boolean, Watch, Watcher<R>> w =
+                watchable.get();
+        if (relist || lastResourceVersion == null) {
+            list(w);
+        }
+        watch = w.watch(lastResourceVersion, new Watcher<R>() {
+            @Override
+            public void eventReceived(Action action, R resource) {
+                dispatch(action, resource);
+            }
+
+            @Override
+            public void onClose(KubernetesClientException e) {
+                if (e != null) {
+                    log.error("{} watch closed with exception in namespace {}", kind, namespace, e);
+                    recreateWatch(e);
+                } else {
+                    log.info("{} watch closed in namespace {}", kind, namespace);
+                }
+            }
+        });
+    }
+
+    private void list(FilterWatchListDeletable<R, ? extends KubernetesResourceList<R>, Boolean, Watch, Watcher<R>> w) {
+        // no watch is running, so nothing changes the store while the pages are being read
+        PagedLister<R> lister = new PagedLister<>(w::list);
+        Map<String, R> listed = new LinkedHashMap<>();
+        lister.stream().forEach(item -> listed.put(keyOf(item), item));
+        synchronized (this) {
+            store.keySet().retainAll(listed.keySet());
+            store.putAll(listed);
+            lastResourceVersion = lister.getResourceVersion();
+            List<R> items = new ArrayList<>(listed.values());
+            for (Listener<R> listener : listeners) {
+                deliverList(listener, items);
+            }
+        }
+    }
+
+    private void dispatch(Watcher.Action action, R resource) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (action == Watcher.Action.ERROR) {
+                log.error("Failed {} {} in namespace {}", kind, resource, namespace);
+            } else {
+                lastResourceVersion = resource.getMetadata().getResourceVersion();
+                if (action == Watcher.Action.DELETED) {
+                    store.remove(keyOf(resource));
+                } else {
+                    store.put(keyOf(resource), resource);
+                }
+            }
+            deliver(() -> {
+                for (Listener<R> listener : active) {
+                    try {
+                        listener.onEvent(action, resource);
+                    } catch (RuntimeException e) {
+                        log.warn("Subscriber of {} watch in namespace {} has failed: {}", kind, namespace,
+                                e.getMessage(), e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Must be called with the lock held. The listener receives the events only after the list.
+     */
+    private void deliverList(Listener<R> listener, List<R> items) {
+        CompletableFuture<Void> listed = initialLists.remove(listener);
+        deliver(() -> {
+            synchronized (this) {
+                if (!listeners.contains(listener)) {
+                    // unsubscribed meanwhile
+                    return;
+                }
+            }
+            try {
+                ListSink<R> sink = listener.onList();
+                items.forEach(sink);
+                sink.finish();
+                if (!active.contains(listener)) {
+                    active.add(listener);
+                }
+                if (listed != null) {
+                    listed.complete(null);
+                }
+            } catch (RuntimeException e) {
+                if (listed != null) {
+                    listed.completeExceptionally(e);
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Must be called with the lock held, so the deliveries are in the order of the changes of the store.
+     */
+    private void deliver(Runnable delivery) {
+        deliveries.add(delivery);
+        if (!delivering) {
+            delivering = true;
+            SDKEntrypoint.getExecutors().execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable delivery;
+            synchronized (this) {
+                delivery = deliveries.poll();
+                if (delivery == null) {
+                    delivering = false;
+                    return;
+                }
+            }
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                log.warn("Subscriber of {} watch in namespace {} has failed: {}", kind, namespace, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void recreateWatch(KubernetesClientException cause) {
+        if (closed) {
+            return;
+        }
+        Watch oldWatch = this.watch;
+        if (oldWatch != null) {
+            oldWatch.close();
+        }
+        if (disconnectedAt == 0) {
+            disconnectedAt = System.nanoTime();
+        }
+        boolean gone = cause != null && cause.getCode() == HttpURLConnection.HTTP_GONE;
+        if (gone) {
+            relistNeeded = true;
+        }
+        OperatorMetrics.WATCH_RECONNECTS.labels(kind, namespace).inc();
+        long delay = WATCH_BACKOFF.delayMs(reconnectAttempts++);
+        log.info("Recreating {} watch in namespace {} in {} ms{}", kind, namespace, delay,
+                gone ? ", resource version is gone so it will be listed again" : "");
+        SDKEntrypoint.getScheduler().schedule(() -> SDKEntrypoint.getExecutors().execute(this::reopenWatch), delay,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void reopenWatch() {
+        boolean relist;
+        synchronized (openLock) {
+            if (closed) {
+                return;
+            }
+            relist = relistNeeded;
+            try {
+                openWatch(relist);
+            } catch (RuntimeException e) {
+                log.error("Failed to recreate {} watch in namespace {}", kind, namespace);
+                recreateWatch(e instanceof KubernetesClientException ? (KubernetesClientException) e : null);
+                return;
+            }
+        }
+        log.info("{} watch recreated in namespace {}{}", kind, namespace,
+                relist ? "" : " from resource version " + lastResourceVersion);
+        if (relist) {
+            relistNeeded = false;
+        }
+        reconnectAttempts = 0;
+        OperatorMetrics.WATCH_RECOVERY.labels(kind, namespace).observe(OperatorMetrics.secondsSince(disconnectedAt));
+        disconnectedAt = 0;
+    }
+
+    private static boolean isAllNamespaces(String namespace) {
+        return "*".equals(namespace);
+    }
+
+    private static String keyOf(HasMetadata resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        return Event.keyOf(metadata.getNamespace(), metadata.getName());
+    }
+}
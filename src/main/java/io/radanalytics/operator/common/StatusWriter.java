@@ -0,0 +1,225 @@
+package io.radanalytics.operator.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.HttpClientUtils;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.radanalytics.operator.SDKEntrypoint;
+import io.radanalytics.operator.common.crd.InfoStatus;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the status of the custom resources in the background, so that the handlers don't wait for the API server.
+ * Only the latest status is kept for each custom resource until it's written, the older ones are dropped, and the
+ * status is not written at all if its state is the same as the one that has been written the last time. The status
+ * is sent as a JSON merge patch to the status subresource, so there is no need to read the resource first and the
+ * patch doesn't conflict with the changes of the spec. Failed writes (conflicts, throttling, errors of the API
+ * server) are retried after a jittered exponential backoff unless a newer status has arrived meanwhile.
+ *
+ * The status is compared only with what this writer has written, so a status changed by anybody else (or by an
+ * earlier run of the operator) is overwritten only when the state differs from the one written here the last time.
+ *
+ * The writes for different resources are done in parallel by a few threads of the writer, the writes for the same
+ * resource are done one by one, so there is at most one task per resource waiting for the threads. The requests go
+ * through the http client of the kubernetes client, if it exposes it.
+ */
+public class StatusWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(StatusWriter.class.getName());
+
+    private static final MediaType MERGE_PATCH = MediaType.parse("application/merge-patch+json");
+    private static final Backoff RETRY_BACKOFF = new Backoff(500, 30_000);
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int THREADS = 2;
+
+    private final String entityName;
+    private final OkHttpClient httpClient;
+    private final boolean ownHttpClient;
+    private final ExecutorService executor;
+    private final HttpUrl baseUrl;
+    private final String plural;
+
+    // namespace/name -> status waiting to be written
+    private final Map<String, InfoStatus> pending = new ConcurrentHashMap<>();
+    // namespace/name -> the last successfully written state
+    private final Map<String, String> written = new ConcurrentHashMap<>();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    // keys that are being written or waiting for a retry
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param client      kubernetes client, its http client (or configuration) is used for the requests
+     * @param crd         definition of the custom resources
+     * @param entityName  name of the operator for the logs and metrics
+     */
+    public StatusWriter(KubernetesClient client, CustomResourceDefinition crd, String entityName) {
+        this.entityName = entityName;
+        this.ownHttpClient = !(client instanceof HttpClientAware);
+        this.httpClient = ownHttpClient
+                ? HttpClientUtils.createHttpClient(client.getConfiguration())
+                : ((HttpClientAware) client).getHttpClient();
+        this.executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+                .setNameFormat("status-writer-" + entityName + "-%d")
+                .setDaemon(true)
+                .build());
+        this.baseUrl = HttpUrl.parse(client.getMasterUrl().toString()).newBuilder()
+                .addPathSegment("apis")
+                .addPathSegment(crd.getSpec().getGroup())
+                .addPathSegment(crd.getSpec().getVersion())
+                .build();
+        this.plural = crd.getSpec().getNames().getPlural();
+    }
+
+    /**
+     * Schedules the write of the status, it returns immediately.
+     *
+     * @param namespace  namespace of the custom resource
+     * @param name       name of the custom resource
+     * @param status     new status
+     */
+    public void write(String namespace, String name, InfoStatus status) {
+        String key = Event.keyOf(namespace, name);
+        if (pending.put(key, status) != null) {
+            OperatorMetrics.STATUS_WRITES.labels(entityName, namespace, "coalesced").inc();
+        }
+        if (active.add(key)) {
+            submit(namespace, name);
+        }
+    }
+
+    /**
+     * Stops writing, the statuses that haven't been written yet are dropped.
+     */
+    public void close() {
+        executor.shutdownNow();
+        if (ownHttpClient) {
+            httpClient.dispatcher().executorService().shutdown();
+            httpClient.connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * Drops what is known about the custom resource, typically once it has been deleted.
+     *
+     * @param namespace  namespace of the custom resource
+     * @param name       name of the custom resource
+     */
+    public void forget(String namespace, String name) {
+        String key = Event.keyOf(namespace, name);
+        pending.remove(key);
+        written.remove(key);
+        attempts.remove(key);
+    }
+
+    private void flush(String namespace, String name) {
+        String key = Event.keyOf(namespace, name);
+        InfoStatus status = pending.remove(key);
+        if (status != null) {
+            if (status.getState() != null && status.getState().equals(written.get(key))) {
+                OperatorMetrics.STATUS_WRITES.labels(entityName, namespace, "skipped").inc();
+            } else {
+                int code = patch(namespace, name, status);
+                if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                    // the resource has been deleted meanwhile
+                    OperatorMetrics.STATUS_WRITES.labels(entityName, namespace, "gone").inc();
+                    forget(namespace, name);
+                } else if (code >= 200 && code < 300) {
+                    OperatorMetrics.STATUS_WRITES.labels(entityName, namespace, "written").inc();
+                    written.put(key, status.getState());
+                    attempts.remove(key);
+                } else if (retryLater(namespace, name, status, code)) {
+                    return;
+                }
+            }
+        }
+        active.remove(key);
+        // a status may have arrived after the pending one has been taken, but before the key was released
+        if (pending.containsKey(key) && active.add(key)) {
+            submit(namespace, name);
+        }
+    }
+
+    private void submit(String namespace, String name) {
+        try {
+            executor.execute(() -> flush(namespace, name));
+        } catch (RejectedExecutionException e) {
+            // closed
+            active.remove(Event.keyOf(namespace, name));
+        }
+    }
+
+    /**
+     * @return true if the write has been scheduled for a retry and the key stays active
+     */
+    private boolean retryLater(String namespace, String name, InfoStatus status, int code) {
+        String key = Event.keyOf(namespace, name);
+        int attempt = attempts.merge(key, 1, Integer::sum);
+        boolean retriable = code < 0 || code == HttpURLConnection.HTTP_CONFLICT || code == 429 || code >= 500;
+        if (!retriable || attempt > MAX_ATTEMPTS) {
+            log.warn("Giving up writing the status of {} {} in namespace {} after {} attempt(s) (HTTP {})",
+                    entityName, name, namespace, attempt, code);
+            OperatorMetrics.STATUS_WRITES.labels(entityName, namespace, "failed").inc();
+            attempts.remove(key);
+            return false;
+        }
+        // the newer status wins, if there is any
+        pending.putIfAbsent(key, status);
+        long delay = RETRY_BACKOFF.delayMs(attempt - 1);
+        log.info("Status of {} {} in namespace {} has not been written (HTTP {}), retrying in {} ms", entityName,
+                name, namespace, code, delay);
+        OperatorMetrics.STATUS_WRITES.labels(entityName, namespace, "retried").inc();
+        SDKEntrypoint.getScheduler().schedule(() -> submit(namespace, name), delay, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * @return the http status code or -1 if the request couldn't be sent
+     */
+    private int patch(String namespace, String name, InfoStatus status) {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegment("namespaces")
+                .addPathSegment(namespace)
+                .addPathSegment(plural)
+                .addPathSegment(name)
+                .addPathSegment("status")
+                .build();
+        try {
+            String body = Serialization.jsonMapper().writeValueAsString(Collections.singletonMap("status", status));
+            Request request = new Request.Builder()
+                    .url(url)
+                    .patch(RequestBody.create(MERGE_PATCH, body))
+                    .build();
+            try (Response response = httpClient.newCall(request).execute()) {
+                return response.code();
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Unable to serialize status {} of {} {}", status, entityName, name, e);
+            return HttpURLConnection.HTTP_BAD_REQUEST;
+        } catch (IOException e) {
+            log.warn("Unable to write the status of {} {} in namespace {}: {}", entityName, name, namespace,
+                    e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package io.radanalytics.operator.common;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.radanalytics.operator.SDKEntrypoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work queue sitting between the watch and the handlers. Events are keyed by <code>namespace/name</code> and all
+ * the pending events for the same key are collapsed into one (see {@link Event#merge(Event)}), so the amount of the
+ * handler work is proportional to the number of changed objects rather than to the number of events.
+ *
+ * A key that is being processed is never handed out again until {@link #done(Event)} is called for it, new events
+ * for such key are only collected and become ready after that.
+ *
+ * The queue can be paused, for instance until the first full reconciliation has finished. While paused, it works
+ * as a bounded buffer: the events are collected and coalesced, but not handed out, and the events for new keys are
+ * dropped once there are <code>maxPausedSize</code> keys pending.
+ *
+ * Events whose handling has failed can be put back by {@link #retryLater(Event)} with a per-key exponential backoff.
+ * A newer event for the same key doesn't wait for the backoff, it's merged with the event waiting for the retry.
+ *
+ * @param <T> entity info class that captures the configuration of the objects we are watching
+ */
+public class WorkQueue<T extends EntityInfo> {
+
+    private final Map<String, Event<T>> pending = new HashMap<>();
+    private final Set<String> ready = new LinkedHashSet<>();
+    private final Set<String> processing = new HashSet<>();
+    private final Map<String, Event<T>> retries = new HashMap<>();
+    private final Map<String, Integer> failures = new HashMap<>();
+    private final Backoff retryBackoff;
+    private final int maxPausedSize;
+    private boolean paused;
+    private boolean shutdown = false;
+
+    private final Gauge.Child depth;
+    private final Counter.Child coalesced;
+    private final Counter.Child dropped;
+    private final Histogram.Child waitTime;
+    private final Counter.Child retried;
+    private final Gauge.Child currentBackoff;
+
+    public WorkQueue(String entityName, String namespace, Backoff retryBackoff, boolean paused, int maxPausedSize) {
+        this.retryBackoff = retryBackoff;
+        this.paused = paused;
+        this.maxPausedSize = maxPausedSize;
+        this.depth = OperatorMetrics.QUEUE_DEPTH.labels(entityName, namespace);
+        this.coalesced = OperatorMetrics.QUEUE_COALESCED.labels(entityName, namespace);
+        this.dropped = OperatorMetrics.QUEUE_DROPPED.labels(entityName, namespace);
+        this.waitTime = OperatorMetrics.QUEUE_WAIT.labels(entityName, namespace);
+        this.retried = OperatorMetrics.HANDLER_RETRIES.labels(entityName, namespace);
+        this.currentBackoff = OperatorMetrics.HANDLER_RETRY_BACKOFF.labels(entityName, namespace);
+    }
+
+    public void add(Event<T> event) {
+        add(event, true);
+    }
+
+    /**
+     * @param event    event to enqueue
+     * @param bounded  if false, the event is never dropped, even if the queue is paused and full
+     */
+    public synchronized void add(Event<T> event, boolean bounded) {
+        if (shutdown) {
+            return;
+        }
+        String key = event.getKey();
+        Event<T> waitingForRetry = retries.remove(key);
+        if (waitingForRetry != null) {
+            event = waitingForRetry.merge(event);
+            // the event waiting for a retry has been handed to the handler already, so it never cancels out
+            bounded = false;
+        }
+        Event<T> previous = pending.get(key);
+        if (previous == null) {
+            if (bounded && paused && pending.size() >= maxPausedSize) {
+                dropped.inc();
+                forget(key);
+                return;
+            }
+            pending.put(key, event);
+            if (!processing.contains(key)) {
+                ready.add(key);
+                notifyAll();
+            }
+        } else {
+            coalesced.inc();
+            Event<T> merged = previous.merge(event);
+            if (merged == null) {
+                pending.remove(key);
+                ready.remove(key);
+                forget(key);
+            } else {
+                pending.put(key, merged);
+            }
+        }
+        depth.set(pending.size());
+    }
+
+    /**
+     * Blocks until there is an event ready for processing. The caller is responsible for calling
+     * {@link #done(Event)} once the event has been handled.
+     *
+     * @return the oldest ready event or null if the queue has been shut down
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized Event<T> take() throws InterruptedException {
+        while (!shutdown && (paused || ready.isEmpty())) {
+            wait();
+        }
+        if (shutdown) {
+            return null;
+        }
+        return next();
+    }
+
+    /**
+     * Blocks until there is an event ready for processing and then collects more ready events, until there is
+     * <code>maxSize</code> of them or <code>lingerMs</code> milliseconds have passed. The caller is responsible for
+     * calling {@link #done(Event)} for each of the returned events once the batch has been handled.
+     *
+     * @param maxSize   maximum number of events in the batch
+     * @param lingerMs  how long to wait for more events after the first one has been taken
+     * @return the batch of events for distinct keys or empty list if the queue has been shut down
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized List<Event<T>> takeBatch(int maxSize, long lingerMs) throws InterruptedException {
+        List<Event<T>> batch = new ArrayList<>(maxSize);
+        Event<T> first = take();
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < maxSize) {
+            if (shutdown) {
+                return Collections.emptyList();
+            }
+            if (ready.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } else {
+                batch.add(next());
+            }
+        }
+        return batch;
+    }
+
+    private Event<T> next() {
+        Iterator<String> it = ready.iterator();
+        String key = it.next();
+        it.remove();
+        Event<T> event = pending.remove(key);
+        processing.add(key);
+        depth.set(pending.size());
+        waitTime.observe(OperatorMetrics.secondsSince(event.getEnqueuedAt()));
+        return event;
+    }
+
+    public synchronized void done(Event<T> event) {
+        String key = event.getKey();
+        processing.remove(key);
+        if (pending.containsKey(key)) {
+            ready.add(key);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Enqueues the event again once the backoff for its key has passed. The backoff grows exponentially with each
+     * consecutive failure of the same key until {@link #forget(String)} is called for it.
+     *
+     * @param event  event whose handling has failed
+     * @return how many milliseconds the event will wait
+     */
+    public synchronized long retryLater(Event<T> event) {
+        if (shutdown) {
+            return 0;
+        }
+        String key = event.getKey();
+        int attempt = failures.merge(key, 1, Integer::sum) - 1;
+        long delay = retryBackoff.delayMs(attempt);
+        Event<T> retry = event.requeued();
+        Event<T> newer = pending.get(key);
+        if (newer != null) {
+            // a newer event has arrived while the failed one was being handled, it doesn't wait for the backoff
+            pending.put(key, retry.merge(newer));
+            retried.inc();
+            return 0;
+        }
+        retries.put(key, retry);
+        retried.inc();
+        currentBackoff.set(delay / 1000.0);
+        SDKEntrypoint.getScheduler().schedule(() -> retryNow(retry), delay, TimeUnit.MILLISECONDS);
+        return delay;
+    }
+
+    private synchronized void retryNow(Event<T> event) {
+        // the retry may have been merged with a newer event or forgotten in the meantime
+        if (!shutdown && retries.remove(event.getKey(), event)) {
+            add(event.requeued(), false);
+        }
+    }
+
+    /**
+     * Resets the backoff of the key, it should be called when its event has been handled successfully.
+     *
+     * @param key  <code>namespace/name</code> of the handled event
+     */
+    public synchronized void forget(String key) {
+        if (failures.remove(key) != null && failures.isEmpty()) {
+            currentBackoff.set(0);
+        }
+    }
+
+    /**
+     * Stops handing out the events, they are only buffered until {@link #resume()} is called.
+     */
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    /**
+     * Starts (or continues) handing out the events, including those that have been buffered while paused.
+     *
+     * @return how many events have been waiting
+     */
+    public synchronized int resume() {
+        boolean wasPaused = paused;
+        paused = false;
+        notifyAll();
+        return wasPaused ? pending.size() : 0;
+    }
+
+    /**
+     * @param key  <code>namespace/name</code>
+     * @return true if there is an event for the key waiting, being processed or waiting for a retry
+     */
+    public synchronized boolean contains(String key) {
+        return pending.containsKey(key) || processing.contains(key) || retries.containsKey(key);
+    }
+
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        pending.clear();
+        ready.clear();
+        retries.clear();
+        failures.clear();
+        depth.set(0);
+        currentBackoff.set(0);
+        notifyAll();
+    }
+}
@@ -10,6 +10,7 @@ import io.fabric8.kubernetes.client.CustomResourceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.utils.Serialization;
+import io.radanalytics.operator.common.EntityConverters;
 import io.radanalytics.operator.common.EntityInfo;
 import io.radanalytics.operator.common.JSONSchemaReader;
 import org.slf4j.Logger;
@@ -17,12 +18,17 @@ import org.slf4j.Logger;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Collections;
 
 @Singleton
 public class CrdDeployer {
 
+    // hash of the spec the CRD has been created from, the CRD is replaced only if it has changed
+    public static final String HASH_ANNOTATION = "crd-hash";
+
+    // the definitions are initialized in parallel, but the serialization of the kubernetes client is global
+    private static final Object SERIALIZATION_LOCK = new Object();
+
     @Inject
     protected Logger log;
 
@@ -37,51 +43,64 @@ public class CrdDeployer {
                                                     Class<? extends EntityInfo> infoClass,
                                                     boolean isOpenshift) {
         final String newPrefix = prefix.substring(0, prefix.length() - 1);
+        final String hashAnnotation = prefix + HASH_ANNOTATION;
         CustomResourceDefinition crdToReturn;
 
-        Serialization.jsonMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        List<CustomResourceDefinition> crds = client.customResourceDefinitions()
-                .list()
-                .getItems()
-                .stream()
-                .filter(p -> entityName.equals(p.getSpec().getNames().getKind()) && newPrefix.equals(p.getSpec().getGroup()))
-                .collect(Collectors.toList());
-        if (!crds.isEmpty()) {
-            crdToReturn = crds.get(0);
-            log.info("CustomResourceDefinition for {} has been found in the K8s, so we are skipping the creation.", entityName);
-        } else {
-            log.info("Creating CustomResourceDefinition for {}.", entityName);
-            JSONSchemaProps schema = JSONSchemaReader.readSchema(infoClass);
-            CustomResourceDefinitionFluent.SpecNested<CustomResourceDefinitionBuilder> builder;
-
-            if (schema != null) {
-                removeDefaultValues(schema);
-                builder = getCRDBuilder(newPrefix,
-                                        entityName,
-                                        shortNames,
-                                        pluralName)
-                        .withNewValidation()
-                        .withNewOpenAPIV3SchemaLike(schema)
-                        .endOpenAPIV3Schema()
-                        .endValidation();
-            } else {
-                builder = getCRDBuilder(newPrefix,
-                                        entityName,
-                                        shortNames,
-                                        pluralName);
+        synchronized (SERIALIZATION_LOCK) {
+            if (Serialization.jsonMapper().isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)) {
+                Serialization.jsonMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
             }
-            if (additionalPrinterColumnNames != null && additionalPrinterColumnNames.length > 0) {
-                for (int i = 0; i < additionalPrinterColumnNames.length; i++) {
-                    builder = builder.addNewAdditionalPrinterColumn().withName(additionalPrinterColumnNames[i]).withJSONPath(additionalPrinterColumnPaths[i]).endAdditionalPrinterColumn();
-                }
+        }
+        JSONSchemaProps schema = JSONSchemaReader.readCrdSchema(infoClass);
+        CustomResourceDefinitionFluent.SpecNested<CustomResourceDefinitionBuilder> builder;
+
+        if (schema != null) {
+            builder = getCRDBuilder(newPrefix,
+                                    entityName,
+                                    shortNames,
+                                    pluralName)
+                    .withNewValidation()
+                    .withNewOpenAPIV3SchemaLike(schema)
+                    .endOpenAPIV3Schema()
+                    .endValidation();
+        } else {
+            builder = getCRDBuilder(newPrefix,
+                                    entityName,
+                                    shortNames,
+                                    pluralName);
+        }
+        if (additionalPrinterColumnNames != null && additionalPrinterColumnNames.length > 0) {
+            for (int i = 0; i < additionalPrinterColumnNames.length; i++) {
+                builder = builder.addNewAdditionalPrinterColumn().withName(additionalPrinterColumnNames[i]).withJSONPath(additionalPrinterColumnPaths[i]).endAdditionalPrinterColumn();
             }
-            crdToReturn = builder.endSpec().build();
-            try {
-                if (schema != null) {
-                    // https://github.com/fabric8io/kubernetes-client/issues/1486
-                    crdToReturn.getSpec().getValidation().getOpenAPIV3Schema().setDependencies(null);
-                }
+        }
+        CustomResourceDefinition desired = builder.endSpec().build();
+        if (schema != null) {
+            // https://github.com/fabric8io/kubernetes-client/issues/1486
+            desired.getSpec().getValidation().getOpenAPIV3Schema().setDependencies(null);
+        }
+        String hash = EntityConverters.contentHash(desired.getSpec());
+        desired.getMetadata().setAnnotations(Collections.singletonMap(hashAnnotation, hash));
 
+        // the name of a CRD is always <plural>.<group>, so usually there is no need to list all of them
+        CustomResourceDefinition existing = client.customResourceDefinitions()
+                .withName(desired.getMetadata().getName())
+                .get();
+        boolean foundByName = existing != null;
+        if (!foundByName) {
+            // the CRD may have been created with another plural name
+            existing = findByKindAndGroup(client, entityName, newPrefix);
+        }
+        String existingHash = existing == null || existing.getMetadata().getAnnotations() == null ? null
+                : existing.getMetadata().getAnnotations().get(hashAnnotation);
+        if (existing != null && (!foundByName || existingHash == null || existingHash.equals(hash))) {
+            // without the annotation, the CRD hasn't been created by this library (or its older version), so keep it
+            crdToReturn = existing;
+            log.info("CustomResourceDefinition for {} has been found in the K8s, so we are skipping the creation.", entityName);
+        } else {
+            log.info("{} CustomResourceDefinition for {}.", existing == null ? "Creating" : "Updating", entityName);
+            crdToReturn = desired;
+            try {
                 client.customResourceDefinitions().createOrReplace(crdToReturn);
             } catch (KubernetesClientException e) {
                 // old version of K8s/openshift -> don't use schema validation
@@ -93,27 +112,28 @@ public class CrdDeployer {
                                             pluralName)
                         .endSpec()
                         .build();
+                crdToReturn.getMetadata().setAnnotations(Collections.singletonMap(hashAnnotation, hash));
                 client.customResourceDefinitions().createOrReplace(crdToReturn);
             }
         }
 
         // register the new crd for json serialization
-        io.fabric8.kubernetes.internal.KubernetesDeserializer.registerCustomKind(newPrefix + "/" + crdToReturn.getSpec().getVersion() + "#" + entityName, InfoClass.class);
-        io.fabric8.kubernetes.internal.KubernetesDeserializer.registerCustomKind(newPrefix + "/" + crdToReturn.getSpec().getVersion() + "#" + entityName + "List", CustomResourceList.class);
+        synchronized (SERIALIZATION_LOCK) {
+            io.fabric8.kubernetes.internal.KubernetesDeserializer.registerCustomKind(newPrefix + "/" + crdToReturn.getSpec().getVersion() + "#" + entityName, InfoClass.class);
+            io.fabric8.kubernetes.internal.KubernetesDeserializer.registerCustomKind(newPrefix + "/" + crdToReturn.getSpec().getVersion() + "#" + entityName + "List", CustomResourceList.class);
+        }
 
         return crdToReturn;
     }
 
-    private void removeDefaultValues(JSONSchemaProps schema) {
-        if (null == schema) {
-            return;
-        }
-        schema.setDefault(null);
-        if (null != schema.getProperties()) {
-            for (JSONSchemaProps prop : schema.getProperties().values()) {
-                removeDefaultValues(prop);
-            }
-        }
+    private CustomResourceDefinition findByKindAndGroup(KubernetesClient client, String kind, String group) {
+        return client.customResourceDefinitions()
+                .list()
+                .getItems()
+                .stream()
+                .filter(p -> kind.equals(p.getSpec().getNames().getKind()) && group.equals(p.getSpec().getGroup()))
+                .findFirst()
+                .orElse(null);
     }
 
     private CustomResourceDefinitionFluent.SpecNested<CustomResourceDefinitionBuilder> getCRDBuilder(String prefix,
@@ -4,15 +4,23 @@
  */
 package io.radanalytics.operator.resource;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.radanalytics.operator.common.EntityConverters;
 import io.radanalytics.operator.common.EntityInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
 /**
  * A helper for parsing the data section inside the K8s resource (ConfigMap).
  * Type parameter T represents the concrete EntityInfo that captures the configuration obout the
@@ -20,17 +28,30 @@ import org.yaml.snakeyaml.error.YAMLException;
  *
  * One can create arbitrarily deep configurations by nesting the types in <code>Class&lt;T&gt;</code> and using
  * the Snake yaml or other library as for conversions between YAML and Java objects.
+ *
+ * The Snake yaml parsers aren't thread-safe, so each thread keeps its own parser per class. Payloads that are JSON
+ * objects are read by Jackson instead, classes generated from the JSON schema are filled by their generated
+ * <code>fromMap</code> method (see {@link EntityConverters}). An operator can opt in to remember its converted
+ * config maps per <code>resourceVersion</code> by a {@link Memo}, so the unchanged config maps aren't parsed again
+ * during resyncs.
  */
 public class HasDataHelper {
     private static final Logger log = LoggerFactory.getLogger(HasDataHelper.class.getName());
 
-    public static <T extends EntityInfo> T parseYaml(Class<T> clazz, String yamlDoc, String name) {
+    private static final ThreadLocal<Map<Class<?>, Yaml>> parsers = ThreadLocal.withInitial(HashMap::new);
 
-        LoaderOptions options = new LoaderOptions();
-        Yaml snake = new Yaml(new Constructor(clazz));
+    public static <T extends EntityInfo> T parseYaml(Class<T> clazz, String yamlDoc, String name) {
         T entity = null;
         try {
-            entity = snake.load(yamlDoc);
+            entity = isJsonObject(yamlDoc) ? parseJson(clazz, yamlDoc) : null;
+            if (entity == null && EntityConverters.hasGeneratedReader(clazz)) {
+                Object tree = parsers.get().computeIfAbsent(Object.class, c -> new Yaml()).load(yamlDoc);
+                entity = tree instanceof Map ? EntityConverters.readGenerated(clazz, (Map<?, ?>) tree) : null;
+            }
+            if (entity == null) {
+                Yaml snake = parsers.get().computeIfAbsent(clazz, c -> new Yaml(new Constructor(c)));
+                entity = snake.load(yamlDoc);
+            }
         } catch (YAMLException ex) {
             String msg = "Unable to parse yaml definition of configmap, check if you don't have typo: \n'\n" +
                     yamlDoc + "\n'\n";
@@ -55,6 +76,29 @@ public class HasDataHelper {
         return entity;
     }
 
+    private static boolean isJsonObject(String doc) {
+        if (doc == null) {
+            return false;
+        }
+        for (int i = 0; i < doc.length(); i++) {
+            char c = doc.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{';
+            }
+        }
+        return false;
+    }
+
+    private static <T extends EntityInfo> T parseJson(Class<T> clazz, String jsonDoc) {
+        try {
+            return EntityConverters.readerFor(clazz).readValue(jsonDoc);
+        } catch (IOException e) {
+            // JSON is also a valid YAML, let the Snake yaml try it and report the problem if there is one
+            log.debug("Unable to read the config as JSON, falling back to YAML: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      *
      * @param clazz  concrete class of type T that extends the EntityInfo.
@@ -70,7 +114,40 @@ public class HasDataHelper {
      */
     public static <T extends EntityInfo> T parseCM(Class<T> clazz, ConfigMap cm) {
         String yaml = cm.getData().get("config");
-        T entity = parseYaml(clazz, yaml, cm.getMetadata().getName());
-        return entity;
+        return parseYaml(clazz, yaml, cm.getMetadata().getName());
+    }
+
+    /**
+     * Remembers the config maps converted for one operator by their <code>namespace/name</code> and
+     * <code>resourceVersion</code>. The same instance is returned for the same version of the config map, so the
+     * operator using it must not modify the entities. The entities are held weakly, so the memo doesn't keep the
+     * deleted or outdated config maps alive once the operator has dropped them.
+     *
+     * @param <T> type of the entities
+     */
+    public static class Memo<T extends EntityInfo> {
+
+        private final Cache<String, T> converted = CacheBuilder.newBuilder().weakValues().build();
+
+        /**
+         * @param cm       config map to convert
+         * @param convert  conversion used if this version of the config map hasn't been converted yet
+         * @return the converted config map
+         */
+        public T convert(ConfigMap cm, Function<ConfigMap, T> convert) {
+            ObjectMeta metadata = cm.getMetadata();
+            if (metadata.getResourceVersion() == null) {
+                return convert.apply(cm);
+            }
+            String key = metadata.getNamespace() + "/" + metadata.getName() + "@" + metadata.getResourceVersion();
+            T entity = converted.getIfPresent(key);
+            if (entity == null) {
+                entity = convert.apply(cm);
+                if (entity != null) {
+                    converted.put(key, entity);
+                }
+            }
+            return entity;
+        }
     }
 }
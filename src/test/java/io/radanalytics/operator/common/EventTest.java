@@ -0,0 +1,66 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.client.Watcher;
+import org.junit.Test;
+
+import static io.fabric8.kubernetes.client.Watcher.Action.ADDED;
+import static io.fabric8.kubernetes.client.Watcher.Action.DELETED;
+import static io.fabric8.kubernetes.client.Watcher.Action.MODIFIED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventTest {
+
+    static class TestInfo extends EntityInfo {
+    }
+
+    static Event<TestInfo> event(Watcher.Action action) {
+        return new Event<>(action, new TestInfo(), "ns", "foo");
+    }
+
+    private static Watcher.Action merged(Watcher.Action older, Watcher.Action newer) {
+        Event<TestInfo> merged = event(older).merge(event(newer));
+        return merged == null ? null : merged.getAction();
+    }
+
+    @Test
+    public void testMergeTable() {
+        assertEquals(ADDED, merged(ADDED, ADDED));
+        assertEquals(ADDED, merged(ADDED, MODIFIED));
+        assertNull(merged(ADDED, DELETED));
+        assertEquals(MODIFIED, merged(MODIFIED, ADDED));
+        assertEquals(MODIFIED, merged(MODIFIED, MODIFIED));
+        assertEquals(DELETED, merged(MODIFIED, DELETED));
+        assertEquals(MODIFIED, merged(DELETED, ADDED));
+        assertEquals(MODIFIED, merged(DELETED, MODIFIED));
+        assertEquals(DELETED, merged(DELETED, DELETED));
+    }
+
+    @Test
+    public void testMergeKeepsNewerEntityAndOlderEnqueueTime() {
+        Event<TestInfo> older = event(ADDED);
+        Event<TestInfo> newer = event(MODIFIED);
+        Event<TestInfo> merged = older.merge(newer);
+        assertSame(newer.getEntity(), merged.getEntity());
+        assertEquals(older.getEnqueuedAt(), merged.getEnqueuedAt());
+        assertEquals("ns/foo", merged.getKey());
+    }
+
+    @Test
+    public void testAttemptedAdditionFollowedByDeletionIsDeletion() {
+        Event<TestInfo> retried = event(ADDED).requeued();
+        assertTrue(retried.isAttempted());
+        Event<TestInfo> merged = retried.merge(event(DELETED));
+        assertEquals(DELETED, merged.getAction());
+        assertTrue(merged.isAttempted());
+    }
+
+    @Test
+    public void testAttemptedFlagSurvivesMerges() {
+        Event<TestInfo> merged = event(ADDED).requeued().merge(event(MODIFIED));
+        assertEquals(ADDED, merged.getAction());
+        assertEquals(DELETED, merged.merge(event(DELETED)).getAction());
+    }
+}
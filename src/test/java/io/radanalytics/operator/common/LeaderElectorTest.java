@@ -0,0 +1,118 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LeaderElectorTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String LEASE = "test-lease";
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(true, true);
+
+    private KubernetesClient client;
+    private AtomicInteger started;
+    private AtomicInteger stopped;
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        started = new AtomicInteger();
+        stopped = new AtomicInteger();
+    }
+
+    private LeaderElector elector(String identity) {
+        // the shortest lease, its renew deadline is 666 ms
+        return new LeaderElector(client, NAMESPACE, LEASE, identity, 1, started::incrementAndGet,
+                stopped::incrementAndGet);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> spec() {
+        return (Map<String, Object>) client.customResource(LeaderElector.LEASES).get(NAMESPACE, LEASE).get("spec");
+    }
+
+    @Test
+    public void testAcquiresMissingLease() {
+        LeaderElector a = elector("a");
+        a.tick();
+        assertTrue(a.isLeader());
+        assertEquals(1, started.get());
+        assertEquals("a", spec().get("holderIdentity"));
+        assertEquals(0, ((Number) spec().get("leaseTransitions")).intValue());
+    }
+
+    @Test
+    public void testLeaderRenewsLease() throws Exception {
+        LeaderElector a = elector("a");
+        a.tick();
+        Object renewTime = spec().get("renewTime");
+        Thread.sleep(10);
+        a.tick();
+        assertTrue(a.isLeader());
+        assertEquals(1, started.get());
+        assertEquals("a", spec().get("holderIdentity"));
+        assertNotEquals(renewTime, spec().get("renewTime"));
+    }
+
+    @Test
+    public void testStandbyTakesOverExpiredLease() throws Exception {
+        LeaderElector a = elector("a");
+        LeaderElector b = elector("b");
+        a.tick();
+        b.tick();
+        assertFalse(b.isLeader());
+
+        // a doesn't renew the lease anymore
+        Thread.sleep(1_100);
+        b.tick();
+        assertTrue(b.isLeader());
+        assertEquals("b", spec().get("holderIdentity"));
+        assertEquals(1, ((Number) spec().get("leaseTransitions")).intValue());
+
+        // the former leader finds out it has lost the lease
+        a.tick();
+        assertFalse(a.isLeader());
+    }
+
+    @Test
+    public void testLeaderStepsDownAfterRenewDeadline() throws Exception {
+        LeaderElector a = elector("a");
+        a.tick();
+        a.checkRenewDeadline();
+        assertTrue(a.isLeader());
+
+        // no renewal within the renew deadline, but before the lease expires
+        Thread.sleep(700);
+        a.checkRenewDeadline();
+        assertFalse(a.isLeader());
+        assertEquals(1, stopped.get());
+    }
+
+    @Test
+    public void testLeaderReleasesLeaseOnStop() {
+        LeaderElector a = elector("a");
+        LeaderElector b = elector("b");
+        a.tick();
+        a.stop();
+        assertFalse(a.isLeader());
+        assertEquals(1, stopped.get());
+        assertEquals("", spec().get("holderIdentity"));
+
+        // no need to wait for the lease to expire
+        b.tick();
+        assertTrue(b.isLeader());
+    }
+}
@@ -0,0 +1,56 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardManagerTest {
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(true, true);
+
+    private ShardManager member(String identity) {
+        return new ShardManager(server.getClient(), "test", "group", identity, 1, ShardManager.ShardKey.NAME,
+                previous -> {
+                });
+    }
+
+    @Test
+    public void testOwnsNothingBeforeJoining() {
+        assertFalse(member("a").owns("ns", "foo"));
+    }
+
+    @Test
+    public void testMembersSplitTheResources() {
+        ShardManager a = member("a");
+        ShardManager b = member("b");
+        a.tick();
+        b.tick();
+        a.tick();
+        assertEquals(2, a.getMembers().size());
+        int ownedByA = 0;
+        for (int i = 0; i < 100; i++) {
+            boolean ownerA = a.owns("ns", "foo-" + i);
+            assertTrue("exactly one member owns a resource", ownerA != b.owns("ns", "foo-" + i));
+            ownedByA += ownerA ? 1 : 0;
+        }
+        assertTrue(ownedByA > 0 && ownedByA < 100);
+    }
+
+    @Test
+    public void testOwnsNothingAfterRenewDeadline() throws Exception {
+        ShardManager a = member("a");
+        a.tick();
+        assertTrue(a.owns("ns", "foo"));
+
+        // no renewal within two thirds of the lease duration
+        Thread.sleep(700);
+        assertFalse(a.owns("ns", "foo"));
+        a.tick();
+        assertTrue(a.owns("ns", "foo"));
+    }
+}
@@ -0,0 +1,254 @@
+package io.radanalytics.operator.common;
+
+import io.fabric8.kubernetes.client.Watcher;
+import io.radanalytics.operator.common.EventTest.TestInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.fabric8.kubernetes.client.Watcher.Action.ADDED;
+import static io.fabric8.kubernetes.client.Watcher.Action.DELETED;
+import static io.fabric8.kubernetes.client.Watcher.Action.MODIFIED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WorkQueueTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static WorkQueue<TestInfo> queue(boolean paused, int maxPausedSize) {
+        return new WorkQueue<>("test", "ns", new Backoff(10, 20), paused, maxPausedSize);
+    }
+
+    private static Event<TestInfo> event(Watcher.Action action, String name) {
+        return new Event<>(action, new TestInfo(), "ns", name);
+    }
+
+    private Future<Event<TestInfo>> takeAsync(WorkQueue<TestInfo> queue) {
+        return executor.submit(queue::take);
+    }
+
+    private static void assertBlocked(Future<?> future) throws Exception {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            fail("the queue should not hand out an event");
+        } catch (TimeoutException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testEventsForTheSameKeyAreCoalesced() throws Exception {
+        WorkQueue<TestInfo> queue = queue(false, 10);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> latest = event(MODIFIED, "foo");
+        queue.add(latest);
+        queue.add(event(ADDED, "bar"));
+        assertEquals(2, queue.size());
+
+        Event<TestInfo> first = queue.take();
+        assertEquals("foo", first.getName());
+        assertEquals(ADDED, first.getAction());
+        assertSame(latest.getEntity(), first.getEntity());
+        assertEquals("bar", queue.take().getName());
+    }
+
+    @Test
+    public void testAddedAndDeletedBeforeProcessingCancelOut() {
+        WorkQueue<TestInfo> queue = queue(false, 10);
+        queue.add(event(ADDED, "foo"));
+        queue.add(event(DELETED, "foo"));
+        assertEquals(0, queue.size());
+        assertFalse(queue.contains("ns/foo"));
+    }
+
+    @Test
+    public void testKeyBeingProcessedIsNotHandedOutAgain() throws Exception {
+        WorkQueue<TestInfo> queue = queue(false, 10);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> processing = queue.take();
+        queue.add(event(MODIFIED, "foo"));
+        assertTrue(queue.contains("ns/foo"));
+
+        Future<Event<TestInfo>> next = takeAsync(queue);
+        assertBlocked(next);
+        queue.done(processing);
+        Event<TestInfo> event = next.get(1, TimeUnit.SECONDS);
+        assertEquals(MODIFIED, event.getAction());
+        queue.done(event);
+        assertFalse(queue.contains("ns/foo"));
+    }
+
+    @Test
+    public void testKeyIsNeverProcessedByTwoWorkersAtOnce() throws Exception {
+        WorkQueue<TestInfo> queue = queue(false, 1000);
+        Set<String> inFlight = ConcurrentHashMap.newKeySet();
+        AtomicBoolean overlap = new AtomicBoolean(false);
+        AtomicInteger handled = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(executor.submit(() -> {
+                try {
+                    Event<TestInfo> event;
+                    while ((event = queue.take()) != null) {
+                        if (!inFlight.add(event.getKey())) {
+                            overlap.set(true);
+                        }
+                        Thread.sleep(1);
+                        inFlight.remove(event.getKey());
+                        handled.incrementAndGet();
+                        queue.done(event);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+        }
+        for (int i = 0; i < 2000; i++) {
+            queue.add(event(MODIFIED, "foo-" + (i % 5)));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (queue.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        queue.shutdown();
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.SECONDS);
+        }
+        assertFalse("a key has been processed by two workers at once", overlap.get());
+        assertTrue(handled.get() > 0);
+        assertTrue("events should have been coalesced", handled.get() < 2000);
+    }
+
+    @Test
+    public void testPausedQueueBuffersAndDropsNewKeysOverLimit() throws Exception {
+        WorkQueue<TestInfo> queue = queue(true, 2);
+        queue.add(event(ADDED, "foo"));
+        queue.add(event(ADDED, "bar"));
+        queue.add(event(ADDED, "baz"));
+        // existing keys are still coalesced
+        queue.add(event(MODIFIED, "foo"));
+        // the unbounded add is never dropped
+        queue.add(event(ADDED, "qux"), false);
+        assertEquals(3, queue.size());
+        assertFalse(queue.contains("ns/baz"));
+
+        Future<Event<TestInfo>> next = takeAsync(queue);
+        assertBlocked(next);
+        assertEquals(3, queue.resume());
+        assertEquals("foo", next.get(1, TimeUnit.SECONDS).getName());
+        assertEquals(0, queue.resume());
+    }
+
+    @Test
+    public void testFailedEventIsRetriedAfterBackoff() throws Exception {
+        WorkQueue<TestInfo> queue = queue(false, 10);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> failed = queue.take();
+        long delay = queue.retryLater(failed);
+        queue.done(failed);
+        assertTrue(delay >= 5 && delay <= 10);
+        assertTrue(queue.contains("ns/foo"));
+
+        Event<TestInfo> retried = takeAsync(queue).get(1, TimeUnit.SECONDS);
+        assertEquals(ADDED, retried.getAction());
+        assertSame(failed.getEntity(), retried.getEntity());
+        assertTrue(retried.isAttempted());
+        queue.done(retried);
+        queue.forget(retried.getKey());
+    }
+
+    @Test
+    public void testNewerEventDoesNotWaitForTheRetry() throws Exception {
+        WorkQueue<TestInfo> queue = new WorkQueue<>("test", "ns", new Backoff(60_000, 60_000), false, 10);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> failed = queue.take();
+        queue.retryLater(failed);
+        queue.done(failed);
+        queue.add(event(MODIFIED, "foo"));
+
+        Event<TestInfo> merged = takeAsync(queue).get(1, TimeUnit.SECONDS);
+        assertEquals(ADDED, merged.getAction());
+    }
+
+    @Test
+    public void testRetriedAdditionDeletedMeanwhileBecomesDeletion() throws Exception {
+        WorkQueue<TestInfo> queue = new WorkQueue<>("test", "ns", new Backoff(60_000, 60_000), false, 10);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> failed = queue.take();
+        queue.retryLater(failed);
+        queue.done(failed);
+        queue.add(event(DELETED, "foo"));
+
+        Event<TestInfo> merged = takeAsync(queue).get(1, TimeUnit.SECONDS);
+        assertEquals(DELETED, merged.getAction());
+    }
+
+    @Test
+    public void testEventArrivedDuringFailedHandlingIsMergedInOrder() throws Exception {
+        WorkQueue<TestInfo> queue = new WorkQueue<>("test", "ns", new Backoff(60_000, 60_000), false, 10);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> failed = queue.take();
+        queue.add(event(DELETED, "foo"));
+        assertEquals(0, queue.retryLater(failed));
+        queue.done(failed);
+
+        Event<TestInfo> merged = takeAsync(queue).get(1, TimeUnit.SECONDS);
+        assertEquals(DELETED, merged.getAction());
+    }
+
+    @Test
+    public void testRetryIsNotDroppedByFullPausedQueue() throws Exception {
+        WorkQueue<TestInfo> queue = queue(false, 1);
+        queue.add(event(ADDED, "foo"));
+        Event<TestInfo> failed = queue.take();
+        queue.pause();
+        queue.add(event(ADDED, "bar"));
+        queue.retryLater(failed);
+        queue.done(failed);
+
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (queue.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testShutdownReleasesWaitingWorkers() throws Exception {
+        WorkQueue<TestInfo> queue = queue(false, 10);
+        Future<Event<TestInfo>> next = takeAsync(queue);
+        assertBlocked(next);
+        queue.shutdown();
+        assertNull(next.get(1, TimeUnit.SECONDS));
+        queue.add(event(ADDED, "foo"));
+        assertEquals(0, queue.size());
+    }
+}